@@ -0,0 +1,53 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.GameDAO;
+import dataaccess.MemoryGameDAO;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory game store, the remove/add pair is what the server does after every move
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameDAOBenchmark {
+    @Param({"1000"})
+    public int gameCount;
+
+    private GameDAO gameDAO;
+    private GameData updatedGame;
+    private int nextLookup;
+
+    @Setup
+    public void setup() {
+        gameDAO = new MemoryGameDAO();
+        for (int gameID = 1; gameID <= gameCount; gameID++) {
+            gameDAO.addGameData(new GameData(gameID, "white", "black", "game" + gameID, new ChessGame()));
+        }
+        updatedGame = new GameData(gameCount / 2, "white", "black", "updated", new ChessGame());
+    }
+
+    @Benchmark
+    public GameData findGameDataByID() {
+        nextLookup = nextLookup % gameCount + 1;
+        return gameDAO.findGameDataByID(Integer.toString(nextLookup));
+    }
+
+    @Benchmark
+    public void replaceGameData() {
+        gameDAO.removeGameDataByGameID(updatedGame);
+        gameDAO.addGameData(updatedGame);
+    }
+
+    @Benchmark
+    public int findAllGameData() {
+        return gameDAO.findGameData().size();
+    }
+}
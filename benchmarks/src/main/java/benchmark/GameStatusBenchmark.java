@@ -0,0 +1,48 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The status checks the server runs after every move. `ChessGame` caches the legal moves of the
+ * team to move, so each invocation clears that cache to measure the first, uncached check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStatusBenchmark {
+    /**
+     * A game in progress, a checkmate and a stalemate
+     */
+    @Param({
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3",
+            "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"
+    })
+    public String fen;
+
+    private ChessGame game;
+
+    @Setup
+    public void setup() {
+        game = Perft.loadFen(fen);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        game.clearMoveCache();
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        game.clearMoveCache();
+        return game.isInStalemate(game.getTeamTurn());
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal move generation and move making, the work done for every move a player sends.
+ * `ChessGame` caches the legal moves of the team to move, so the benchmarks that use them clear
+ * that cache first to measure the generation and not a cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+    @Param({"START", "KIWIPETE"})
+    public Perft.Position position;
+
+    private ChessGame game;
+    private List<ChessPosition> sideToMovePieces;
+    private ChessMove firstLegalMove;
+
+    @Setup
+    public void setup() {
+        game = Perft.loadFen(position.getFen());
+        sideToMovePieces = new ArrayList<>();
+        for (var entry : game.getBoard().getBoardMap().entrySet()) {
+            if (entry.getValue().getTeamColor() == game.getTeamTurn()) {
+                sideToMovePieces.add(entry.getKey());
+            }
+        }
+        for (ChessPosition piecePosition : sideToMovePieces) {
+            Collection<ChessMove> moves = game.validMoves(piecePosition);
+            if (!moves.isEmpty()) {
+                firstLegalMove = moves.iterator().next();
+                break;
+            }
+        }
+    }
+
+    @Benchmark
+    public void validMovesAllPieces(Blackhole blackhole) {
+        // Generated on the first call, as after a move, and shared by the rest
+        game.clearMoveCache();
+        for (ChessPosition piecePosition : sideToMovePieces) {
+            blackhole.consume(game.validMoves(piecePosition));
+        }
+    }
+
+    @Benchmark
+    public void pieceMovesAllPieces(Blackhole blackhole) {
+        ChessBoard board = game.getBoard();
+        for (ChessPosition piecePosition : sideToMovePieces) {
+            blackhole.consume(board.getPiece(piecePosition).pieceMoves(board, piecePosition));
+        }
+    }
+
+    @Benchmark
+    public long makeMove() throws InvalidMoveException {
+        game.clearMoveCache();
+        game.makeMove(firstLegalMove);
+        long key = game.positionKey();
+        game.unmakeMove();
+        return key;
+    }
+
+    @Benchmark
+    public long makeMoveUnchecked() {
+        game.makeMoveUnchecked(firstLegalMove);
+        long key = game.positionKey();
+        game.unmakeMove();
+        return key;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+import engine.LazySmpSearch;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth with the Lazy SMP search, per thread count. The table is cleared before
+ * every search so no run profits from the one before it.
+ * <p>
+ * Run `main()` to benchmark 1, 2, 4, ... threads up to the core count and print the speedup over one thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchScalingBenchmark {
+    private static final int TABLE_MB = 64;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"7"})
+    public int depth;
+
+    private ChessGame game;
+    private TranspositionTable table;
+    private LazySmpSearch search;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        table = new TranspositionTable(TABLE_MB);
+        search = new LazySmpSearch(threads, table);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth() {
+        return search.search(game, SearchLimits.depth(depth));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        List<String> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            threadCounts.add(Integer.toString(threads));
+        }
+        Options options = new OptionsBuilder()
+                .include(SearchScalingBenchmark.class.getSimpleName())
+                .param("threads", threadCounts.toArray(new String[0]))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<Integer, Double> millisByThreads = new TreeMap<>();
+        for (RunResult result : results) {
+            millisByThreads.put(Integer.parseInt(result.getParams().getParam("threads")),
+                    result.getPrimaryResult().getScore());
+        }
+        double single = millisByThreads.getOrDefault(1, Double.NaN);
+        System.out.println();
+        System.out.println("threads   ms to depth   speedup");
+        for (Map.Entry<Integer, Double> entry : millisByThreads.entrySet()) {
+            System.out.printf("%7d %13.1f %9.2fx%n", entry.getKey(), entry.getValue(), single / entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package benchmark;
+
+import adapters.*;
+import chess.*;
+import com.google.gson.Gson;
+import model.GameData;
+import org.openjdk.jmh.annotations.*;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.ServerMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round-trips through the chess adapters, as done for every stored game and LOAD_GAME message,
+ * and the binary `ChessGameCodec` games can be stored with instead
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+    private final Gson gson = ChessGson.gson();
+
+    private ChessGame game;
+    private String gameJson;
+    private byte[] gameBytes;
+    private String boardJson;
+    private LoadGameMessage loadGameMessage;
+
+    @Setup
+    public void setup() {
+        game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        gameJson = gson.toJson(game);
+        gameBytes = ChessGameCodec.encode(game);
+        boardJson = gson.toJson(game.getBoard());
+        loadGameMessage = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME,
+                new GameData(1, "white", "black", "benchmark", game));
+    }
+
+    @Benchmark
+    public String serializeGame() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame deserializeGame() {
+        return gson.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] encodeGame() {
+        return ChessGameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decodeGame() {
+        return ChessGameCodec.decode(gameBytes);
+    }
+
+    @Benchmark
+    public String serializeBoard() {
+        return gson.toJson(game.getBoard());
+    }
+
+    @Benchmark
+    public ChessBoard deserializeBoard() {
+        return gson.fromJson(boardJson, ChessBoard.class);
+    }
+
+    @Benchmark
+    public String serializeLoadGameMessage() {
+        return gson.toJson(loadGameMessage);
+    }
+
+    @Benchmark
+    public String serializeLoadGameMessageTyped() {
+        return ChessGson.toJson(loadGameMessage);
+    }
+}
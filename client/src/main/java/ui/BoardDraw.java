@@ -230,14 +230,14 @@ public class BoardDraw {
 
     private static void appendPieceString(int row, int col, Map<ChessPosition, ChessPiece> boardMap, StringBuilder stringBuilder) {
         boolean isWhite = isWhiteBackground(row, col);
-        ChessPiece currPiece = boardMap.get(new ChessPosition(row, col));
+        ChessPiece currPiece = boardMap.get(ChessPosition.of(row, col));
         stringBuilder.append(getPieceString(currPiece, isWhite));
     }
 
     private static void appendPieceStringWithHighLights(int row, int col, Map<ChessPosition, ChessPiece> boardMap,
                                                         StringBuilder stringBuilder, Set<ChessPosition> destinations) {
         boolean isWhite = isWhiteBackground(row, col);
-        ChessPosition drawingPosition = new ChessPosition(row, col);
+        ChessPosition drawingPosition = ChessPosition.of(row, col);
         ChessPiece currPiece = boardMap.get(drawingPosition);
         if (destinations.contains(drawingPosition)) {
             stringBuilder.append(getPieceHighlightString(currPiece));
@@ -3,10 +3,8 @@ package ui;
 import adapters.*;
 import chess.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.reflect.TypeToken;
 import model.GameData;
 import websocket.commands.*;
 import websocket.commands.UserGameCommand.*;
@@ -14,18 +12,8 @@ import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
 import websocket.messages.NotificationMessage;
 
-import java.util.Map;
-
 public class GamePlay implements WebSocketListener {
-    private final Gson gson = new GsonBuilder()
-            .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
-            .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
-            .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
-            .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
-            .registerTypeAdapter(
-                    new TypeToken<Map<ChessGame.TeamColor, Map<ChessBoard.CastlePieceTypes, Map<ChessBoard.CastleType, Boolean>>>>(){}.getType(),
-                    new CastleRequirementsAdapter())
-            .create();
+    private final Gson gson = ChessGson.gson();
 
     private WebSocketClient ws;
     private UserType userType;
@@ -60,7 +48,7 @@ public class GamePlay implements WebSocketListener {
     }
 
     void processLoadGameMessage(String message) {
-        LoadGameMessage loadGameMessage = gson.fromJson(message, LoadGameMessage.class);
+        LoadGameMessage loadGameMessage = ChessGson.readLoadGameMessage(message);
         GameData gameData = loadGameMessage.getGame();
         Terminal.setChessGame(gameData.game(), gameData.gameName());
         String currentTeamTurn = gameData.game().getTeamTurn().toString();
@@ -224,8 +212,8 @@ public class GamePlay implements WebSocketListener {
             else if (endRowChar < '1' || endRowChar > '8') {
                 resultMove = null;
             } else {
-                ChessPosition startPosition = new ChessPosition(startRowChar - '0', startColChar - 'a' + 1);
-                ChessPosition endPosition = new ChessPosition(endRowChar - '0', endColChar - 'a' + 1);
+                ChessPosition startPosition = ChessPosition.of(startRowChar - '0', startColChar - 'a' + 1);
+                ChessPosition endPosition = ChessPosition.of(endRowChar - '0', endColChar - 'a' + 1);
                 resultMove = new ChessMove(startPosition, endPosition, null);
             }
         }
@@ -314,7 +302,7 @@ public class GamePlay implements WebSocketListener {
             } else if (startRowChar < '1' || startRowChar > '8') {
                 position = null;
             } else {
-                position = new ChessPosition(startRowChar - '0', startColChar - 'a' + 1);
+                position = ChessPosition.of(startRowChar - '0', startColChar - 'a' + 1);
             }
         }
         if (position == null) {
@@ -1,38 +1,19 @@
 package ui;
 
 import adapters.*;
-import chess.ChessBoard;
-import chess.ChessGame;
-import chess.ChessPiece;
-import chess.ChessPosition;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
-import java.util.Map;
 
 public class WebSocketClient extends Endpoint {
     private final WebSocketListener listener;
     private final int port;
-    private final Gson gson;
     private Session session;
 
-
     public WebSocketClient(int port, WebSocketListener listener) {
         this.port = port;
         this.listener = listener;
-        gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
-                .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
-                .registerTypeAdapter(
-                        new TypeToken<Map<ChessGame.TeamColor, Map<ChessBoard.CastlePieceTypes, Map<ChessBoard.CastleType, Boolean>>>>(){}.getType(),
-                        new CastleRequirementsAdapter())
-                .create();
     }
 
     @Override
@@ -89,6 +70,6 @@ public class WebSocketClient extends Endpoint {
     }
 
     private String convertToJson(Object command) {
-        return gson.toJson(command);
+        return ChessGson.gson().toJson(command);
     }
 }
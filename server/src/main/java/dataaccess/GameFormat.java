@@ -0,0 +1,18 @@
+package dataaccess;
+
+/**
+ * How `SQLGameDAO` writes games to the game column. Rows in either format can always be read.
+ */
+public enum GameFormat {
+    /** Gson JSON through the chess adapters, as games were first stored */
+    JSON,
+    /** `ChessGameCodec` bytes as Base64 text, well over 10 times smaller than the JSON */
+    BINARY;
+
+    /**
+     * @return The format named by the `chess.gameFormat` system property, `BINARY` if it is not set
+     */
+    public static GameFormat fromProperty() {
+        return valueOf(System.getProperty("chess.gameFormat", BINARY.name()).toUpperCase());
+    }
+}
@@ -1,38 +1,30 @@
 package dataaccess;
 
 import adapters.*;
-import chess.ChessBoard;
 import chess.ChessGame;
-import chess.ChessPiece;
-import chess.ChessPosition;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import model.GameData;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-
-import chess.ChessGame.TeamColor;
-import chess.ChessBoard.*;
-
 
 public class SQLGameDAO implements GameDAO {
-    private final Gson gson;
+    private final GameFormat format;
 
+    /**
+     * Writes games in the format named by the `chess.gameFormat` system property, see `GameFormat.fromProperty()`
+     */
     public SQLGameDAO() {
-        gson = new GsonBuilder()
-                .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
-                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
-                .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
-                .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
-                .registerTypeAdapter(
-                        new TypeToken<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>>(){}.getType(),
-                        new CastleRequirementsAdapter())
-                .create();
+        this(GameFormat.fromProperty());
+    }
+
+    /**
+     * @param format How games are written. Rows in either format are read.
+     */
+    public SQLGameDAO(GameFormat format) {
+        this.format = format;
     }
 
     @Override
@@ -141,10 +133,19 @@ public class SQLGameDAO implements GameDAO {
     }
 
     public String serializeChessGame(ChessGame chessGame) {
-        return gson.toJson(chessGame);
+        if (format == GameFormat.BINARY) {
+            return Base64.getEncoder().encodeToString(ChessGameCodec.encode(chessGame));
+        }
+        return ChessGson.gson().toJson(chessGame);
     }
 
-    public ChessGame deserializeChessGame(String chessGameJSON) {
-        return gson.fromJson(chessGameJSON, ChessGame.class);
+    /**
+     * @param chessGameString A game column value. JSON objects start with a brace, which Base64 never does.
+     */
+    public ChessGame deserializeChessGame(String chessGameString) {
+        if (chessGameString.startsWith("{")) {
+            return ChessGson.gson().fromJson(chessGameString, ChessGame.class);
+        }
+        return ChessGameCodec.decode(Base64.getDecoder().decode(chessGameString));
     }
 }
@@ -5,6 +5,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import dataaccess.DataAccessException;
 import requests.*;
+import service.AnalysisService;
 import service.AuthService;
 import service.GameService;
 import service.UserService;
@@ -14,6 +15,7 @@ public class Handler {
     private final UserService userService = new UserService();
     private final AuthService authService = new AuthService();
     private final GameService gameService = new GameService();
+    private final AnalysisService analysisService = new AnalysisService();
 
     public String registerUser(String json) throws DataAccessException {
         RegisterRequest request = GSON.fromJson(json, RegisterRequest.class);
@@ -100,6 +102,42 @@ public class Handler {
         return filterEmptyFields(result);
     }
 
+    public String analyzeGame(String authToken, String gameID, String json) throws DataAccessException {
+        JsonObject jsonObject = isStringBlank(json) ? new JsonObject() : GSON.fromJson(json, JsonObject.class);
+        int depth = 0;
+        long moveTime = 0;
+        try {
+            if (jsonObject.has("depth")) {
+                depth = jsonObject.get("depth").getAsInt();
+            }
+            if (jsonObject.has("moveTime")) {
+                moveTime = jsonObject.get("moveTime").getAsLong();
+            }
+        } catch (NumberFormatException | UnsupportedOperationException | IllegalStateException e) {
+            throw new DataAccessException("Error: bad request");
+        }
+        if (isStringBlank(gameID) || isStringBlank(authToken)) {
+            throw new DataAccessException("Error: bad request");
+        }
+        AnalyzeRequest request = new AnalyzeRequest(authToken, gameID, depth, moveTime);
+        AnalyzeResult result = analysisService.analyze(request);
+        if (!result.message().isEmpty()) {
+            throw new DataAccessException(result.message());
+        }
+        return filterEmptyFields(result);
+    }
+
+    public String cancelAnalysis(String authToken, String gameID) throws DataAccessException {
+        if (isStringBlank(gameID) || isStringBlank(authToken)) {
+            throw new DataAccessException("Error: bad request");
+        }
+        CancelAnalysisResult result = analysisService.cancel(new CancelAnalysisRequest(authToken, gameID));
+        if (!result.message().isEmpty()) {
+            throw new DataAccessException(result.message());
+        }
+        return filterEmptyFields(result);
+    }
+
     public void clearDatabase() {
         userService.clearUserDataBase();
         authService.clearAuthDataBase();
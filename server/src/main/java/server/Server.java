@@ -43,6 +43,12 @@ public class Server {
         // Lambda function to join game
         put("/game", this::handleJoinGame);
 
+        // Lambda function to analyze a game with the engine
+        post("/game/:id/analyze", this::handleAnalyzeGame);
+
+        // Lambda function to cancel a game's analysis
+        delete("/game/:id/analyze", this::handleCancelAnalysis);
+
         // Lambda function to clear Database
         delete("/db", this::handleClearDatabase);
 
@@ -155,6 +161,30 @@ public class Server {
         return result;
     }
 
+    private Object handleAnalyzeGame(Request request, Response response) {
+        String authToken = request.headers("Authorization");
+        String result;
+        try {
+            result = handler.analyzeGame(authToken, request.params(":id"), request.body());
+            response.status(200);
+        } catch (DataAccessException e) {
+            result = handleAnalysisException(e, response);
+        }
+        return result;
+    }
+
+    private Object handleCancelAnalysis(Request request, Response response) {
+        String authToken = request.headers("Authorization");
+        String result;
+        try {
+            result = handler.cancelAnalysis(authToken, request.params(":id"));
+            response.status(200);
+        } catch (DataAccessException e) {
+            result = handleAnalysisException(e, response);
+        }
+        return result;
+    }
+
     private Object handleClearDatabase(Request request, Response response) {
         handler.clearDatabase();
         response.status(200);
@@ -187,4 +217,22 @@ public class Server {
         }
         return dumpMapToJson();
     }
+
+    private String handleAnalysisException(DataAccessException e, Response response) {
+        String message = e.getMessage();
+        switch (message) {
+            case "Error: bad request", "Error: game does not exist" -> response.status(400);
+            case "Error: unauthorized" -> response.status(401);
+            case "Error: analysis not found" -> response.status(404);
+            case "Error: analysis cancelled" -> response.status(409);
+            case "Error: too many analyses" -> response.status(429);
+            case "Error: analysis queue full", "Error: analysis timed out" -> response.status(503);
+            default -> {
+                message = "Error: unknown error occurred " + message;
+                response.status(500);
+            }
+        }
+        errorValues.put("message", message);
+        return dumpMapToJson();
+    }
 }
@@ -0,0 +1,316 @@
+package service;
+
+import dataaccess.GameDAO;
+import dataaccess.SQLGameDAO;
+import engine.AnalysisCache;
+import engine.OpeningBook;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.Tablebase;
+import engine.TranspositionTable;
+import chess.ChessGame;
+import chess.PackedMove;
+import model.AuthData;
+import model.GameData;
+import requests.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the engine on stored games.
+ * <p>
+ * Searches run on a small pool of their own with a bounded queue, so a burst of analysis requests
+ * is turned away instead of taking the CPU and threads the other requests need. Each user can
+ * only have a few analyses queued or running at once, and can cancel them. Every search is capped
+ * in time, and the request thread gives up waiting after `MAX_WAIT_MILLIS` even if the analysis is
+ * still queued behind others, so a burst of analyses holds each request thread for a bounded time.
+ * <p>
+ * Finished results are kept in an `AnalysisCache`, so a position many users look at is only
+ * searched once and later requests for it do not use a worker at all. Its hit, miss and eviction
+ * counts are logged every `CACHE_LOG_INTERVAL` lookups.
+ * <p>
+ * When the `chess.openingBook` system property names an `OpeningBook` file, positions in the book
+ * are answered with the book move without searching.
+ */
+public class AnalysisService {
+    /** Depth searched when a request asks for neither a depth nor a time */
+    public static final int DEFAULT_DEPTH = 8;
+    public static final int MAX_DEPTH = 20;
+    /** Every analysis stops after this long, whatever depth was asked for */
+    public static final long MAX_MOVE_TIME_MILLIS = 10_000;
+    /**
+     * Longest a request thread waits for its analysis, queue time included. An analysis still queued
+     * or running by then is stopped and the request is answered with "Error: analysis timed out".
+     */
+    public static final long MAX_WAIT_MILLIS = MAX_MOVE_TIME_MILLIS + 2_000;
+    public static final int QUEUE_CAPACITY = 16;
+    public static final int MAX_JOBS_PER_USER = 2;
+    // Half the cores, the other half stays with the request threads
+    private static final int WORKER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int TABLE_MB = 64;
+    private static final long CACHE_BYTES = 16L * 1024 * 1024;
+    // The cache's hit, miss and eviction counts are logged once per this many lookups
+    private static final long CACHE_LOG_INTERVAL = 100;
+
+    private static final GameDAO GAMEDAO = new SQLGameDAO();
+    private static final AuthService AUTH_SERVICE = new AuthService();
+    // Shared by every worker, positions from the same game are often analysed again
+    private static final TranspositionTable TABLE = new TranspositionTable(TABLE_MB);
+    private static final OpeningBook BOOK = openBook(System.getProperty("chess.openingBook"));
+    private static final Tablebase TABLEBASE = openTablebase(System.getProperty("chess.tablebases"));
+    private static final ThreadLocal<Search> SEARCHES = ThreadLocal.withInitial(AnalysisService::createSearch);
+    private static final AnalysisCache CACHE = new AnalysisCache(CACHE_BYTES);
+    private static final AtomicLong CACHE_LOOKUPS = new AtomicLong();
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+    // Queued and running jobs by username, guarded by itself
+    private static final Map<String, List<Job>> JOBS = new HashMap<>();
+
+    public AnalyzeResult analyze(AnalyzeRequest analyzeRequest) {
+        AuthData authData = AUTH_SERVICE.findAuthDataByAuthToken(analyzeRequest.authToken());
+        if (authData == null) {
+            return errorResult("Error: unauthorized");
+        }
+        SearchLimits limits = limitsFor(analyzeRequest);
+        if (limits == null) {
+            return errorResult("Error: bad request");
+        }
+        GameData gameData;
+        try {
+            gameData = GAMEDAO.findGameDataByID(analyzeRequest.gameID());
+        } catch (NumberFormatException e) {
+            return errorResult("Error: bad request");
+        }
+        if (gameData == null) {
+            return errorResult("Error: game does not exist");
+        }
+
+        ChessGame game = gameData.game();
+        long positionKey = game.positionKey();
+        if (BOOK != null) {
+            int bookMove = BOOK.probe(positionKey);
+            if (bookMove != Search.NO_MOVE && game.isLegalMove(bookMove)) {
+                String move = PackedMove.toString(bookMove);
+                return new AnalyzeResult(move, 0, 0, 0, 0, move, true, "");
+            }
+        }
+        SearchResult cached = CACHE.get(positionKey, limits);
+        if (CACHE_LOOKUPS.incrementAndGet() % CACHE_LOG_INTERVAL == 0) {
+            System.out.println("AnalysisService: " + CACHE + String.format(", hit rate %.2f", CACHE.hitRate()));
+        }
+        if (cached != null) {
+            return toAnalyzeResult(cached);
+        }
+
+        Job job = new Job(authData.username(), gameData.gameID(), game, limits);
+        synchronized (JOBS) {
+            List<Job> userJobs = JOBS.computeIfAbsent(job.username, username -> new ArrayList<>());
+            if (userJobs.size() >= MAX_JOBS_PER_USER) {
+                return errorResult("Error: too many analyses");
+            }
+            userJobs.add(job);
+        }
+        try {
+            EXECUTOR.execute(job.task);
+        } catch (RejectedExecutionException e) {
+            release(job);
+            return errorResult("Error: analysis queue full");
+        }
+
+        SearchResult result;
+        try {
+            result = job.task.get(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Dropped from the queue, or stopped at its last completed depth with nobody to answer
+            job.stop();
+            return errorResult("Error: analysis timed out");
+        } catch (CancellationException e) {
+            return errorResult("Error: analysis cancelled");
+        } catch (InterruptedException e) {
+            job.stop();
+            Thread.currentThread().interrupt();
+            return errorResult("Error: analysis cancelled");
+        } catch (ExecutionException e) {
+            return errorResult("Error: analysis failed " + e.getCause().getMessage());
+        }
+        if (result == null) {
+            return errorResult("Error: analysis cancelled");
+        }
+        CACHE.put(positionKey, result);
+        return toAnalyzeResult(result);
+    }
+
+    /**
+     * Stops the user's analyses of a game. Running searches stop at their last completed depth and
+     * still answer with it, queued ones are dropped.
+     */
+    public CancelAnalysisResult cancel(CancelAnalysisRequest cancelRequest) {
+        AuthData authData = AUTH_SERVICE.findAuthDataByAuthToken(cancelRequest.authToken());
+        if (authData == null) {
+            return new CancelAnalysisResult("Error: unauthorized");
+        }
+        int gameID;
+        try {
+            gameID = Integer.parseInt(cancelRequest.gameID());
+        } catch (NumberFormatException e) {
+            return new CancelAnalysisResult("Error: bad request");
+        }
+        List<Job> matching = new ArrayList<>();
+        synchronized (JOBS) {
+            for (Job job : JOBS.getOrDefault(authData.username(), List.of())) {
+                if (job.gameID == gameID) {
+                    matching.add(job);
+                }
+            }
+        }
+        if (matching.isEmpty()) {
+            return new CancelAnalysisResult("Error: analysis not found");
+        }
+        for (Job job : matching) {
+            job.stop();
+        }
+        return new CancelAnalysisResult("");
+    }
+
+    /**
+     * @return The limits to search with, or null if the request asks for something impossible
+     */
+    private static SearchLimits limitsFor(AnalyzeRequest analyzeRequest) {
+        if (analyzeRequest.depth() < 0 || analyzeRequest.moveTime() < 0) {
+            return null;
+        }
+        int depth;
+        if (analyzeRequest.depth() > 0) {
+            depth = Math.min(analyzeRequest.depth(), MAX_DEPTH);
+        } else {
+            depth = analyzeRequest.moveTime() > 0 ? Search.MAX_PLY : DEFAULT_DEPTH;
+        }
+        long moveTime = analyzeRequest.moveTime() > 0 ? Math.min(analyzeRequest.moveTime(), MAX_MOVE_TIME_MILLIS)
+                                                      : MAX_MOVE_TIME_MILLIS;
+        return new SearchLimits(depth, moveTime, 0);
+    }
+
+    private static AnalyzeResult toAnalyzeResult(SearchResult result) {
+        String bestMove = result.bestMove() == Search.NO_MOVE ? null : PackedMove.toString(result.bestMove());
+        return new AnalyzeResult(bestMove, result.score(), result.getMateIn(), result.depth(), result.nodes(),
+                result.principalVariationString(), false, "");
+    }
+
+    private static AnalyzeResult errorResult(String message) {
+        return new AnalyzeResult(null, 0, 0, 0, 0, null, false, message);
+    }
+
+    private static OpeningBook openBook(String path) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException e) {
+            System.err.println("AnalysisService: openBook: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Tablebase openTablebase(String directory) {
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        try {
+            return Tablebase.open(Path.of(directory));
+        } catch (IOException e) {
+            System.err.println("AnalysisService: openTablebase: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Search createSearch() {
+        Search search = new Search(TABLE);
+        search.setTablebase(TABLEBASE);
+        return search;
+    }
+
+    private static void release(Job job) {
+        synchronized (JOBS) {
+            List<Job> userJobs = JOBS.get(job.username);
+            if (userJobs != null) {
+                userJobs.remove(job);
+                if (userJobs.isEmpty()) {
+                    JOBS.remove(job.username);
+                }
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Below the request threads, so they are served first when the cores are busy
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    /**
+     * One analysis. Gives up its user's slot when it finishes or is dropped from the queue.
+     */
+    private static final class Job implements Callable<SearchResult> {
+        private final String username;
+        private final int gameID;
+        private final ChessGame game;
+        private final SearchLimits limits;
+        private final FutureTask<SearchResult> task;
+        // Only this job's search reads it, the worker's `Search` is reused by later jobs
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile boolean started;
+
+        private Job(String username, int gameID, ChessGame game, SearchLimits limits) {
+            this.username = username;
+            this.gameID = gameID;
+            this.game = game;
+            this.limits = limits;
+            task = new FutureTask<>(this) {
+                @Override
+                protected void done() {
+                    release(Job.this);
+                }
+            };
+        }
+
+        @Override
+        public SearchResult call() {
+            started = true;
+            return cancelled.get() ? null : SEARCHES.get().search(game, limits, cancelled);
+        }
+
+        /**
+         * Stops the search if it started, otherwise drops the job from the queue
+         */
+        private void stop() {
+            cancelled.set(true);
+            if (!started && task.cancel(false)) {
+                EXECUTOR.remove(task);
+            }
+        }
+    }
+}
@@ -3,10 +3,8 @@ package websocket;
 import adapters.*;
 import chess.*;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.reflect.TypeToken;
 import dataaccess.AuthDAO;
 import dataaccess.GameDAO;
 import dataaccess.SQLAuthDAO;
@@ -28,15 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 @WebSocket
 public class WSServer {
-    private final Gson gson = new GsonBuilder()
-            .registerTypeAdapter(ChessGame.class, new ChessGameAdapter())
-            .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
-            .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
-            .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
-            .registerTypeAdapter(
-                    new TypeToken<Map<ChessGame.TeamColor, Map<ChessBoard.CastlePieceTypes, Map<ChessBoard.CastleType, Boolean>>>>(){}.getType(),
-                    new CastleRequirementsAdapter())
-            .create();
+    private final Gson gson = ChessGson.gson();
 
     private final GameDAO gameDAO = new SQLGameDAO();
     private final AuthDAO authDAO = new SQLAuthDAO();
@@ -108,12 +98,49 @@ public class WSServer {
         session.getRemote().sendString(message);
     }
 
+    /**
+     * Sends a message to every player and observer of a game. The message is serialized once and the same
+     * String goes to each session, so a game with many observers does not write its board again for each.
+     * A session that fails to receive it does not keep the others from getting it.
+     *
+     * @param except A session to leave out, or null to send to all
+     */
+    private void broadcast(int gameID, String message, Session except) {
+        Session[] players = snapshot(CONNECTED_GAME_PLAYERS.get(gameID));
+        Session[] observers = snapshot(CONNECTED_GAME_OBSERVERS.get(gameID));
+        System.out.println("Broadcasting to " + (players.length + observers.length) + " sessions: " + message);
+        broadcast(players, message, except);
+        broadcast(observers, message, except);
+    }
+
+    private void broadcast(Session[] sessions, String message, Session except) {
+        for (Session session : sessions) {
+            if (session.equals(except)) {
+                continue;
+            }
+            try {
+                session.getRemote().sendString(message);
+            } catch (IOException e) {
+                System.out.println("Failed to send to " + session + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Session[] snapshot(Set<Session> sessions) {
+        if (sessions == null) {
+            return new Session[0];
+        }
+        // Synchronized sets must be locked to be iterated
+        synchronized (sessions) {
+            return sessions.toArray(new Session[0]);
+        }
+    }
+
     private void processConnectCommand(Session session, UserGameCommand command) throws IOException {
         System.out.println("Received ConnectCommand");
         int gameID = command.getGameID();
         String gameIDStr = Integer.toString(gameID);
 
-
         // Validate Connect Command
         System.out.println("Retrieving AuthData of session with authToken: " + command.getAuthToken());
         AuthData authData = authDAO.findAuthDataByAuthToken(command.getAuthToken());
@@ -173,14 +200,8 @@ public class WSServer {
         }
 
         var notification = new NotificationMessage(ServerMessageType.NOTIFICATION, notificationMessage);
-        System.out.println("Sending Notifications to players if any");
-        for (Session playerSession : CONNECTED_GAME_PLAYERS.get(gameID)) {
-            sendMessage(playerSession, gson.toJson(notification));
-        }
-        System.out.println("Sending Notifications to observers if any");
-        for (Session observerSession : CONNECTED_GAME_OBSERVERS.get(gameID)) {
-            sendMessage(observerSession, gson.toJson(notification));
-        }
+        System.out.println("Sending Notifications to players and observers if any");
+        broadcast(gameID, gson.toJson(notification), null);
 
         if (isObserving) {
             System.out.println("Adding Observer to gameID: " + gameID);
@@ -252,23 +273,17 @@ public class WSServer {
         if (gameData.game().isInStalemate(opponentColor)) {
             secondNotification = new NotificationMessage(ServerMessageType.NOTIFICATION, opponentUsername + " is in stalemate");
         }
-        for (Session playerSession : CONNECTED_GAME_PLAYERS.get(gameID)) {
-            sendMessage(playerSession, gson.toJson(loadGameMessage));
-            if (!session.equals(playerSession)) {
-                sendMessage(playerSession, gson.toJson(notificationMessage));
-            }
-            if (secondNotification != null) {
-                sendMessage(playerSession, gson.toJson(secondNotification));
-            }
+        if (gameData.game().isThreefoldRepetition()) {
+            secondNotification = new NotificationMessage(ServerMessageType.NOTIFICATION, "Draw by threefold repetition");
+        } else if (gameData.game().isFiftyMoveDraw()) {
+            secondNotification = new NotificationMessage(ServerMessageType.NOTIFICATION, "Draw by the fifty-move rule");
         }
-        for (Session observerSession : CONNECTED_GAME_OBSERVERS.get(gameID)) {
-            sendMessage(observerSession, gson.toJson(loadGameMessage));
-            sendMessage(observerSession, gson.toJson(notificationMessage));
-            if (secondNotification != null) {
-                sendMessage(observerSession, gson.toJson(secondNotification));
-            }
+        // Each message in turn, so every session still gets them in this order
+        broadcast(gameID, ChessGson.toJson(loadGameMessage), null);
+        broadcast(gameID, gson.toJson(notificationMessage), session);
+        if (secondNotification != null) {
+            broadcast(gameID, gson.toJson(secondNotification), null);
         }
-
     }
 
     private void processLeaveCommand(Session session, UserGameCommand command) throws IOException {
@@ -307,12 +322,7 @@ public class WSServer {
         GAME_ID_BY_SESSION.get(session).remove(gameID);
 
         var notificationMessage = new NotificationMessage(ServerMessageType.NOTIFICATION, authData.username() + " left the game.");
-        for (Session playerSession : CONNECTED_GAME_PLAYERS.get(gameID)) {
-                sendMessage(playerSession, gson.toJson(notificationMessage));
-        }
-        for (Session observerSession : CONNECTED_GAME_OBSERVERS.get(gameID)) {
-                sendMessage(observerSession, gson.toJson(notificationMessage));
-        }
+        broadcast(gameID, gson.toJson(notificationMessage), null);
     }
 
     private void processResignCommand(Session session, UserGameCommand command) throws IOException {
@@ -345,12 +355,7 @@ public class WSServer {
         // Continue with notifications
         System.out.println("Resignation of user: " + authData.username());
         var notificationMessage = new NotificationMessage(ServerMessageType.NOTIFICATION, authData.username() + " has resigned");
-        for (Session playerSession : CONNECTED_GAME_PLAYERS.get(gameID)) {
-            sendMessage(playerSession, gson.toJson(notificationMessage));
-        }
-        for (Session observerSession : CONNECTED_GAME_OBSERVERS.get(gameID)) {
-            sendMessage(observerSession, gson.toJson(notificationMessage));
-        }
+        broadcast(gameID, gson.toJson(notificationMessage), null);
     }
 
     private String getMoveString(String username, ChessMove move, ChessPiece.PieceType pieceType) {
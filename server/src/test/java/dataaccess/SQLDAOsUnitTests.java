@@ -3,6 +3,7 @@ package dataaccess;
 import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPosition;
+import chess.Perft;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
@@ -358,6 +359,22 @@ public class SQLDAOsUnitTests {
         Assertions.assertEquals(game, returnedGame);
     }
 
+    @Test
+    @Order(24)
+    @DisplayName("Read Either Game Format")
+    public void sqlGameReadEitherFormat() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        SQLGameDAO jsonDAO = new SQLGameDAO(GameFormat.JSON);
+        SQLGameDAO binaryDAO = new SQLGameDAO(GameFormat.BINARY);
+        String json = jsonDAO.serializeChessGame(game);
+        String binary = binaryDAO.serializeChessGame(game);
+        Assertions.assertTrue(binary.length() * 10 < json.length(), binary.length() + " vs " + json.length());
+
+        Assertions.assertEquals(game, binaryDAO.deserializeChessGame(json));
+        Assertions.assertEquals(game, binaryDAO.deserializeChessGame(binary));
+        Assertions.assertEquals(game, jsonDAO.deserializeChessGame(binary));
+    }
+
     private static void clearAll() {
         userDAO.clear();
         authDAO.clear();
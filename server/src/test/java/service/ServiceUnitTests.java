@@ -11,12 +11,14 @@ public class ServiceUnitTests {
     private static UserService userService;
     private static AuthService authService;
     private static GameService gameService;
+    private static AnalysisService analysisService;
 
     @BeforeAll
     public static void init() {
         userService = new UserService();
         authService = new AuthService();
         gameService = new GameService();
+        analysisService = new AnalysisService();
     }
 
     @BeforeEach
@@ -271,5 +273,29 @@ public class ServiceUnitTests {
         var gameListRequest = new ListGamesRequest(regResult.authToken());
         Assertions.assertEquals(0, gameService.listGames(gameListRequest).games().size());
     }
-}
 
+    @Test
+    @Order(24)
+    @DisplayName("Analyze Game")
+    public void analyzeGame() {
+        var regResult = userService.register(new RegisterRequest("username", "password", "email"));
+        var gameID = gameService.createGame(new CreateGameRequest(regResult.authToken(), "game")).gameID();
+        var result = analysisService.analyze(new AnalyzeRequest(regResult.authToken(), gameID, 3, 0));
+        Assertions.assertTrue(result.message().isEmpty());
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertEquals(3, result.depth());
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Analyze Game Invalid")
+    public void analyzeGameInvalid() {
+        var regResult = userService.register(new RegisterRequest("username", "password", "email"));
+        var unauthorized = analysisService.analyze(new AnalyzeRequest("falseToken", "1", 3, 0));
+        Assertions.assertEquals("Error: unauthorized", unauthorized.message());
+        var missing = analysisService.analyze(new AnalyzeRequest(regResult.authToken(), "12345", 3, 0));
+        Assertions.assertEquals("Error: game does not exist", missing.message());
+        var cancel = analysisService.cancel(new CancelAnalysisRequest(regResult.authToken(), "12345"));
+        Assertions.assertEquals("Error: analysis not found", cancel.message());
+    }
+}
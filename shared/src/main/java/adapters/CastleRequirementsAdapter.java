@@ -1,71 +1,124 @@
 package adapters;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.EnumMap;
 import java.util.Map;
 
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import chess.ChessBoard;
 import chess.ChessBoard.CastleType;
 import chess.ChessBoard.CastlePieceTypes;
 import chess.ChessGame.TeamColor;
 
-public class CastleRequirementsAdapter implements JsonSerializer<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>>,
-        JsonDeserializer<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>>  {
+public class CastleRequirementsAdapter extends TypeAdapter<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>> {
+    /** The map type this adapter handles, as returned by `ChessBoard.getCastleRequirements()` */
+    public static final TypeToken<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>> TYPE =
+            new TypeToken<>() {};
 
-    @Override
-    public JsonElement serialize(Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>
-                                             teamColorMapMap, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonObject jsonObject = new JsonObject();
+    private static final TeamColor[] TEAM_COLORS = TeamColor.values();
+    private static final CastlePieceTypes[] PIECE_TYPES = CastlePieceTypes.values();
+    private static final CastleType[] CASTLE_TYPES = CastleType.values();
 
+    @Override
+    public void write(JsonWriter out, Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>
+            teamColorMapMap) throws IOException {
+        if (teamColorMapMap == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
         for (Map.Entry<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> teamEntry : teamColorMapMap.entrySet()) {
-            JsonObject teamJson = new JsonObject();
-
+            out.name(teamEntry.getKey().name());
+            out.beginObject();
             for (Map.Entry<CastlePieceTypes, Map<CastleType, Boolean>> pieceEntry : teamEntry.getValue().entrySet()) {
-                JsonObject castleTypeJson = new JsonObject();
-
+                out.name(pieceEntry.getKey().name());
+                out.beginObject();
                 for (Map.Entry<CastleType, Boolean> castleEntry : pieceEntry.getValue().entrySet()) {
-                    castleTypeJson.addProperty(castleEntry.getKey().name(), castleEntry.getValue());
+                    out.name(castleEntry.getKey().name()).value(castleEntry.getValue());
                 }
-                teamJson.add(pieceEntry.getKey().name(), castleTypeJson);
+                out.endObject();
             }
-            jsonObject.add(teamEntry.getKey().name(), teamJson);
+            out.endObject();
         }
-
-        return jsonObject;
+        out.endObject();
     }
 
     @Override
-    public Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>
-            deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
-            throws JsonParseException {
-        JsonObject jsonObject = jsonElement.getAsJsonObject();
+    public Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> read(JsonReader in) throws IOException {
         Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleRequirementsMap = new EnumMap<>(TeamColor.class);
-
-        for (Map.Entry<String, JsonElement> teamEntry : jsonObject.entrySet()) {
-            TeamColor teamColor = TeamColor.valueOf(teamEntry.getKey());
-            JsonObject teamJson = teamEntry.getValue().getAsJsonObject();
-
+        in.beginObject();
+        while (in.hasNext()) {
+            TeamColor teamColor = TeamColor.valueOf(in.nextName());
             Map<CastlePieceTypes, Map<CastleType, Boolean>> pieceTypeMap = new EnumMap<>(CastlePieceTypes.class);
-
-            for (Map.Entry<String, JsonElement> pieceEntry : teamJson.entrySet()) {
-                CastlePieceTypes pieceTypes = CastlePieceTypes.valueOf(pieceEntry.getKey());
-                JsonObject castleTypeMap = pieceEntry.getValue().getAsJsonObject();
-
+            in.beginObject();
+            while (in.hasNext()) {
+                CastlePieceTypes pieceTypes = CastlePieceTypes.valueOf(in.nextName());
                 Map<CastleType, Boolean> castleTypeBooleanMap = new EnumMap<>(CastleType.class);
-
-                for (Map.Entry<String, JsonElement> castleEntry : castleTypeMap.entrySet()) {
-                    CastleType castleType = CastleType.valueOf(castleEntry.getKey());
-                    Boolean value = castleEntry.getValue().getAsBoolean();
-                    castleTypeBooleanMap.put(castleType, value);
+                in.beginObject();
+                while (in.hasNext()) {
+                    CastleType castleType = CastleType.valueOf(in.nextName());
+                    castleTypeBooleanMap.put(castleType, in.nextBoolean());
                 }
-
+                in.endObject();
                 pieceTypeMap.put(pieceTypes, castleTypeBooleanMap);
             }
-
+            in.endObject();
             castleRequirementsMap.put(teamColor, pieceTypeMap);
         }
-
+        in.endObject();
         return castleRequirementsMap;
     }
+
+    /**
+     * Writes packed castle rights (see `ChessBoard.getCastleRights()`) as the same JSON as their
+     * `ChessBoard.getCastleRequirements()` map, without building the map
+     */
+    static void writeRights(JsonWriter out, int castleRights) throws IOException {
+        out.beginObject();
+        for (TeamColor teamColor : TEAM_COLORS) {
+            out.name(teamColor.name());
+            out.beginObject();
+            for (CastlePieceTypes pieceType : PIECE_TYPES) {
+                out.name(pieceType.name());
+                out.beginObject();
+                for (CastleType castleType : CASTLE_TYPES) {
+                    boolean met = (castleRights & ChessBoard.castleBit(teamColor, pieceType, castleType)) != 0;
+                    out.name(castleType.name()).value(met);
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    /**
+     * Reads castle requirements JSON straight into packed castle rights. Missing entries are unmet.
+     */
+    static int readRights(JsonReader in) throws IOException {
+        int castleRights = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            TeamColor teamColor = TeamColor.valueOf(in.nextName());
+            in.beginObject();
+            while (in.hasNext()) {
+                CastlePieceTypes pieceType = CastlePieceTypes.valueOf(in.nextName());
+                in.beginObject();
+                while (in.hasNext()) {
+                    CastleType castleType = CastleType.valueOf(in.nextName());
+                    if (in.nextBoolean()) {
+                        castleRights |= ChessBoard.castleBit(teamColor, pieceType, castleType);
+                    }
+                }
+                in.endObject();
+            }
+            in.endObject();
+        }
+        in.endObject();
+        return castleRights;
+    }
 }
@@ -1,64 +1,120 @@
 package adapters;
 
 import chess.ChessBoard;
-import chess.ChessBoard.*;
-import chess.ChessGame.*;
+import chess.ChessGame.TeamColor;
 import chess.ChessPiece;
 import chess.ChessPosition;
-import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
-import java.util.Map;
+import java.io.IOException;
+
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+    private final TypeAdapter<ChessPosition> positionAdapter;
+    private final TypeAdapter<ChessPiece> pieceAdapter;
+
+    public ChessBoardAdapter() {
+        this(new ChessPositionAdapter(), new ChessPieceAdapter());
+    }
+
+    /**
+     * @param positionAdapter Writes the squares and the king and En passant positions
+     * @param pieceAdapter Writes the pieces
+     */
+    public ChessBoardAdapter(TypeAdapter<ChessPosition> positionAdapter, TypeAdapter<ChessPiece> pieceAdapter) {
+        this.positionAdapter = positionAdapter;
+        this.pieceAdapter = pieceAdapter;
+    }
 
-public class ChessBoardAdapter implements JsonDeserializer<ChessBoard>, JsonSerializer<ChessBoard> {
     @Override
-    public JsonElement serialize(ChessBoard chessBoard, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonObject obj = new JsonObject();
+    public void write(JsonWriter out, ChessBoard chessBoard) throws IOException {
+        if (chessBoard == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
 
-        JsonArray boardArray = new JsonArray();
-        for (Map.Entry<ChessPosition, ChessPiece> entry : chessBoard.getBoardMap().entrySet()) {
-            JsonObject boardEntry = new JsonObject();
-            boardEntry.add("position", jsonSerializationContext.serialize(entry.getKey()));
-            boardEntry.add("piece", jsonSerializationContext.serialize(entry.getValue()));
-            boardArray.add(boardEntry);
+        // Squares in `getBoardMap()` order, from a1 to h8
+        out.name("board");
+        out.beginArray();
+        for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+            ChessPiece piece = chessBoard.getPiece(square);
+            if (piece != null) {
+                out.beginObject();
+                out.name("position");
+                positionAdapter.write(out, ChessPosition.ofSquare(square));
+                out.name("piece");
+                pieceAdapter.write(out, piece);
+                out.endObject();
+            }
         }
-        obj.add("board", boardArray);
+        out.endArray();
 
-        obj.add("castleRequirements", jsonSerializationContext.serialize(chessBoard.getCastleRequirements(),
-                new TypeToken<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>>() {}.getType()));
-        obj.add("whiteKingPos", jsonSerializationContext.serialize(chessBoard.getKingPos(TeamColor.WHITE)));
-        obj.add("blackKingPos", jsonSerializationContext.serialize(chessBoard.getKingPos(TeamColor.BLACK)));
-        obj.add("enPassantWhite", jsonSerializationContext.serialize(chessBoard.getEnPassant(TeamColor.WHITE)));
-        obj.add("enPassantBlack", jsonSerializationContext.serialize(chessBoard.getEnPassant(TeamColor.BLACK)));
+        out.name("castleRequirements");
+        CastleRequirementsAdapter.writeRights(out, chessBoard.getCastleRights());
+        out.name("whiteKingPos");
+        positionAdapter.write(out, chessBoard.getKingPos(TeamColor.WHITE));
+        out.name("blackKingPos");
+        positionAdapter.write(out, chessBoard.getKingPos(TeamColor.BLACK));
+        out.name("enPassantWhite");
+        positionAdapter.write(out, chessBoard.getEnPassant(TeamColor.WHITE));
+        out.name("enPassantBlack");
+        positionAdapter.write(out, chessBoard.getEnPassant(TeamColor.BLACK));
 
-        return obj;
+        out.endObject();
     }
 
     @Override
-    public ChessBoard deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
-            throws JsonParseException {
-        JsonObject obj = jsonElement.getAsJsonObject();
+    public ChessBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
         ChessBoard chessBoard = new ChessBoard();
-
-        JsonArray boardArray = obj.getAsJsonArray("board");
-        for (JsonElement boardElement : boardArray) {
-            JsonObject boardEntry = boardElement.getAsJsonObject();
-            ChessPosition position = jsonDeserializationContext.deserialize(boardEntry.get("position"), ChessPosition.class);
-            ChessPiece piece = jsonDeserializationContext.deserialize(boardEntry.get("piece"), ChessPiece.class);
-            chessBoard.getBoardMap().put(position, piece);
+        ChessPosition whiteKingPos = null;
+        ChessPosition blackKingPos = null;
+        ChessPosition enPassantWhite = null;
+        ChessPosition enPassantBlack = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "board" -> readSquares(in, chessBoard);
+                case "castleRequirements" -> chessBoard.setCastleRights(CastleRequirementsAdapter.readRights(in));
+                case "whiteKingPos" -> whiteKingPos = positionAdapter.read(in);
+                case "blackKingPos" -> blackKingPos = positionAdapter.read(in);
+                case "enPassantWhite" -> enPassantWhite = positionAdapter.read(in);
+                case "enPassantBlack" -> enPassantBlack = positionAdapter.read(in);
+                default -> in.skipValue();
+            }
         }
+        in.endObject();
 
-        Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleReqs =
-                jsonDeserializationContext.deserialize(obj.get("castleRequirements"),
-                        new TypeToken<Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>>>() {}.getType());
-        chessBoard.setCastleRequirements(castleReqs);
-
-        chessBoard.setKingPos(jsonDeserializationContext.deserialize(obj.get("whiteKingPos"), ChessPosition.class), TeamColor.WHITE);
-        chessBoard.setKingPos(jsonDeserializationContext.deserialize(obj.get("blackKingPos"), ChessPosition.class), TeamColor.BLACK);
-        chessBoard.setEnPassant(jsonDeserializationContext.deserialize(obj.get("enPassantWhite"), ChessPosition.class), TeamColor.BLACK);
-        chessBoard.setEnPassant(jsonDeserializationContext.deserialize(obj.get("enPassantBlack"), ChessPosition.class), TeamColor.WHITE);
+        chessBoard.setKingPos(whiteKingPos, TeamColor.WHITE);
+        chessBoard.setKingPos(blackKingPos, TeamColor.BLACK);
+        chessBoard.setEnPassant(enPassantWhite, TeamColor.BLACK);
+        chessBoard.setEnPassant(enPassantBlack, TeamColor.WHITE);
 
         return chessBoard;
     }
+
+    private void readSquares(JsonReader in, ChessBoard chessBoard) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            ChessPosition position = null;
+            ChessPiece piece = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "position" -> position = positionAdapter.read(in);
+                    case "piece" -> piece = pieceAdapter.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            chessBoard.getBoardMap().put(position, piece);
+        }
+        in.endArray();
+    }
 }
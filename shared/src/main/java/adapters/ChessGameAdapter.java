@@ -2,39 +2,105 @@ package adapters;
 
 import chess.ChessBoard;
 import chess.ChessGame;
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.util.Arrays;
 
-public class ChessGameAdapter implements JsonSerializer<ChessGame>, JsonDeserializer<ChessGame> {
-    @Override
-    public JsonElement serialize(ChessGame chessGame, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonObject jsonObject = new JsonObject();
-
-        jsonObject.add("gameBoard", jsonSerializationContext.serialize(chessGame.getBoard()));
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private final TypeAdapter<ChessBoard> boardAdapter;
 
-        jsonObject.add("teamTurn", jsonSerializationContext.serialize(chessGame.getTeamTurn()));
+    public ChessGameAdapter() {
+        this(new ChessBoardAdapter());
+    }
 
-        jsonObject.add("gameOver", jsonSerializationContext.serialize(chessGame.isGameOver()));
-        return jsonObject;
+    /**
+     * @param boardAdapter Writes the game's board
+     */
+    public ChessGameAdapter(TypeAdapter<ChessBoard> boardAdapter) {
+        this.boardAdapter = boardAdapter;
     }
 
     @Override
-    public ChessGame deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
-            throws JsonParseException {
-        JsonObject jsonObject = jsonElement.getAsJsonObject();
+    public void write(JsonWriter out, ChessGame chessGame) throws IOException {
+        if (chessGame == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
 
-        ChessBoard gameBoard = jsonDeserializationContext.deserialize(jsonObject.get("gameBoard"), ChessBoard.class);
+        out.name("gameBoard");
+        boardAdapter.write(out, chessGame.getBoard());
 
-        ChessGame.TeamColor teamTurn = jsonDeserializationContext.deserialize(jsonObject.get("teamTurn"), ChessGame.TeamColor.class);
+        out.name("teamTurn").value(chessGame.getTeamTurn().name());
 
-        boolean gameOver = jsonDeserializationContext.deserialize(jsonObject.get("gameOver"), Boolean.class);
+        out.name("gameOver").value(chessGame.isGameOver());
+
+        out.name("halfmoveClock").value(chessGame.getHalfmoveClock());
+
+        out.name("positionHistory");
+        out.beginArray();
+        for (long key : chessGame.getPositionHistory()) {
+            out.value(key);
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessBoard gameBoard = null;
+        ChessGame.TeamColor teamTurn = null;
+        boolean gameOver = false;
+        // Games stored before the draw rules have neither, and start counting from here
+        int halfmoveClock = -1;
+        long[] positionHistory = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "gameBoard" -> gameBoard = boardAdapter.read(in);
+                case "teamTurn" -> teamTurn = ChessGame.TeamColor.valueOf(in.nextString());
+                case "gameOver" -> gameOver = in.nextBoolean();
+                case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                case "positionHistory" -> positionHistory = readKeys(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
 
         ChessGame chessGame = new ChessGame();
         chessGame.setBoard(gameBoard);
         chessGame.setTeamTurn(teamTurn);
         chessGame.setGameOver(gameOver);
+        if (positionHistory != null) {
+            chessGame.setPositionHistory(positionHistory);
+        }
+        if (halfmoveClock >= 0) {
+            chessGame.setHalfmoveClock(halfmoveClock);
+        }
 
         return chessGame;
     }
+
+    private static long[] readKeys(JsonReader in) throws IOException {
+        long[] keys = new long[16];
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = in.nextLong();
+        }
+        in.endArray();
+        return Arrays.copyOf(keys, count);
+    }
 }
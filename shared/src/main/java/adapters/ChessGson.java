@@ -0,0 +1,126 @@
+package adapters;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import model.GameData;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * The one `Gson` every module uses for games and WebSocket traffic, with the chess adapters
+ * registered (see `ChessTypeAdapterFactory`).
+ * <p>
+ * It is built once per process, and the adapters of the message types are looked up up front so
+ * the first message does not pay for reflection. The typed methods go straight to those adapters,
+ * skipping the per call type lookup of `Gson.toJson(Object)`, and write the same JSON.
+ * Gson and its adapters are thread-safe, so everything here can be used from any thread.
+ */
+public final class ChessGson {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ChessTypeAdapterFactory())
+            .create();
+
+    private static final TypeAdapter<LoadGameMessage> LOAD_GAME_MESSAGE = GSON.getAdapter(LoadGameMessage.class);
+    private static final TypeAdapter<MakeMoveCommand> MAKE_MOVE_COMMAND = GSON.getAdapter(MakeMoveCommand.class);
+    private static final TypeAdapter<GameData> GAME_DATA = GSON.getAdapter(GameData.class);
+
+    static {
+        // Warm the adapter cache for everything else sent over the WebSocket or stored
+        for (Class<?> type : new Class<?>[]{ChessGame.class, ChessBoard.class, ChessMove.class, UserGameCommand.class,
+                ErrorMessage.class, NotificationMessage.class}) {
+            GSON.getAdapter(type);
+        }
+    }
+
+    private ChessGson() {
+    }
+
+    /**
+     * @return The shared, preconfigured `Gson`
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static String toJson(LoadGameMessage loadGameMessage) {
+        return write(LOAD_GAME_MESSAGE, loadGameMessage);
+    }
+
+    public static LoadGameMessage readLoadGameMessage(String json) {
+        return read(LOAD_GAME_MESSAGE, json);
+    }
+
+    public static String toJson(MakeMoveCommand makeMoveCommand) {
+        return write(MAKE_MOVE_COMMAND, makeMoveCommand);
+    }
+
+    public static MakeMoveCommand readMakeMoveCommand(String json) {
+        return read(MAKE_MOVE_COMMAND, json);
+    }
+
+    public static String toJson(GameData gameData) {
+        return write(GAME_DATA, gameData);
+    }
+
+    public static GameData readGameData(String json) {
+        return read(GAME_DATA, json);
+    }
+
+    private static <T> String write(TypeAdapter<T> adapter, T value) {
+        StringWriter out = new StringWriter();
+        try {
+            // Gson's own writer settings, so the output matches `Gson.toJson()`
+            JsonWriter writer = GSON.newJsonWriter(out);
+            adapter.write(writer, value);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static <T> T read(TypeAdapter<T> adapter, String json) {
+        if (json == null) {
+            return null;
+        }
+        JsonReader reader = GSON.newJsonReader(new StringReader(json));
+        try {
+            reader.peek();
+        } catch (EOFException e) {
+            // Empty input reads as null, as in `Gson.fromJson()`
+            return null;
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+        try {
+            T value = adapter.read(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed");
+            }
+            return value;
+        } catch (IllegalStateException | NumberFormatException | MalformedJsonException | EOFException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+}
@@ -3,27 +3,47 @@ package adapters;
 import chess.ChessPiece;
 import chess.ChessPiece.PieceType;
 import chess.ChessGame.TeamColor;
-import com.google.gson.*;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
-public class ChessPieceAdapter implements JsonSerializer<ChessPiece>, JsonDeserializer<ChessPiece> {
+public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
     @Override
-    public JsonElement serialize(ChessPiece piece, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("pieceColor", piece.getTeamColor().name());
-        obj.addProperty("type", piece.getPieceType().name());
-        return obj;
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        if (piece == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("pieceColor").value(piece.getTeamColor().name());
+        out.name("type").value(piece.getPieceType().name());
+        out.endObject();
     }
 
     @Override
-    public ChessPiece deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
-            throws JsonParseException {
-        JsonObject obj = jsonElement.getAsJsonObject();
-
-        TeamColor teamColor = TeamColor.valueOf(obj.get("pieceColor").getAsString());
-        PieceType pieceType = PieceType.valueOf(obj.get("type").getAsString());
-
-        return new ChessPiece(teamColor, pieceType);
+    public ChessPiece read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        TeamColor teamColor = null;
+        PieceType pieceType = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceColor" -> teamColor = TeamColor.valueOf(in.nextString());
+                case "type" -> pieceType = PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (teamColor == null || pieceType == null) {
+            throw new JsonParseException("Chess piece needs a pieceColor and a type");
+        }
+        return ChessPiece.of(teamColor, pieceType);
     }
 }
@@ -1,29 +1,46 @@
 package adapters;
 
 import chess.ChessPosition;
-import com.google.gson.*;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
-public class ChessPositionAdapter implements JsonSerializer<ChessPosition>, JsonDeserializer<ChessPosition> {
+public class ChessPositionAdapter extends TypeAdapter<ChessPosition> {
 
     @Override
-    public JsonElement serialize(ChessPosition position, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("row", position.getRow());
-        obj.addProperty("col", position.getColumn());
-        return obj;
+    public void write(JsonWriter out, ChessPosition position) throws IOException {
+        if (position == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("row").value(position.getRow());
+        out.name("col").value(position.getColumn());
+        out.endObject();
     }
 
-
     @Override
-    public ChessPosition deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext jsonDeserializationContext)
-            throws JsonParseException {
-        JsonObject obj = jsonElement.getAsJsonObject();
-        int row = obj.get("row").getAsInt();
-        // "col" not "column"
-        int column = obj.get("col").getAsInt();
-        return new ChessPosition(row, column);
+    public ChessPosition read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int row = 0;
+        int column = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "row" -> row = in.nextInt();
+                // "col" not "column"
+                case "col" -> column = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return ChessPosition.of(row, column);
     }
 
 }
@@ -0,0 +1,40 @@
+package adapters;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Registers every chess adapter at once: `new GsonBuilder().registerTypeAdapterFactory(new ChessTypeAdapterFactory())`.
+ * <p>
+ * The adapters stream straight to and from JSON, without building a `JsonElement` tree, and write
+ * exactly what the tree based adapters wrote. Gson asks the factory once per type and caches the
+ * adapter, so nested adapters are looked up once instead of on every call.
+ */
+public class ChessTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (rawType == ChessGame.class) {
+            adapter = new ChessGameAdapter(gson.getAdapter(ChessBoard.class));
+        } else if (rawType == ChessBoard.class) {
+            adapter = new ChessBoardAdapter(gson.getAdapter(ChessPosition.class), gson.getAdapter(ChessPiece.class));
+        } else if (rawType == ChessPiece.class) {
+            adapter = new ChessPieceAdapter();
+        } else if (rawType == ChessPosition.class) {
+            adapter = new ChessPositionAdapter();
+        } else if (type.equals(CastleRequirementsAdapter.TYPE)) {
+            adapter = new CastleRequirementsAdapter();
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+}
@@ -0,0 +1,227 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Precomputed attack sets, as bitboards indexed by square (see `ChessBoard.squareIndex()`).
+ * <p>
+ * Knight, king and pawn attacks are plain lookups. Rook and bishop attacks use magic bitboards:
+ * the blockers on a square's rays are multiplied by a magic number whose top bits index a table
+ * holding the attack set for exactly that arrangement of blockers. Everything is built once when
+ * the class loads, the magic numbers are searched for from a fixed seed.
+ */
+public final class Attacks {
+    private static final long SEED = 0x2D5A71F3L;
+
+    private static final int[][] KNIGHT_JUMPS = {{2, 1}, {-2, 1}, {1, 2}, {-1, 2}, {2, -1}, {-2, -1}, {1, -2}, {-1, -2}};
+    private static final int[][] KING_STEPS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}, {-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+
+    private static final long[] KNIGHT = new long[ChessBoard.SQUARE_COUNT];
+    private static final long[] KING = new long[ChessBoard.SQUARE_COUNT];
+    // Indexed by the team of the attacking pawn, then its square
+    private static final long[][] PAWN = new long[ChessGame.TeamColor.values().length][ChessBoard.SQUARE_COUNT];
+
+    // Squares strictly between two squares on a shared line, empty when they are not aligned
+    private static final long[][] BETWEEN = new long[ChessBoard.SQUARE_COUNT][ChessBoard.SQUARE_COUNT];
+
+    private static final Magic[] ROOK_MAGICS = new Magic[ChessBoard.SQUARE_COUNT];
+    private static final Magic[] BISHOP_MAGICS = new Magic[ChessBoard.SQUARE_COUNT];
+
+    static {
+        for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+            KNIGHT[square] = stepAttacks(square, KNIGHT_JUMPS);
+            KING[square] = stepAttacks(square, KING_STEPS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square,
+                    new int[][]{{ChessPiece.WHITE_DIRECTION, -1}, {ChessPiece.WHITE_DIRECTION, 1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square,
+                    new int[][]{{ChessPiece.BLACK_DIRECTION, -1}, {ChessPiece.BLACK_DIRECTION, 1}});
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+            ROOK_MAGICS[square] = findMagic(square, ROOK_DIRECTIONS, random);
+            BISHOP_MAGICS[square] = findMagic(square, BISHOP_DIRECTIONS, random);
+        }
+        for (int from = 0; from < ChessBoard.SQUARE_COUNT; from++) {
+            fillBetween(from, ROOK_DIRECTIONS);
+            fillBetween(from, BISHOP_DIRECTIONS);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @param square The square of the knight
+     * @return Every square a knight there attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @param square The square of the king
+     * @return Every square a king there attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @param teamColor The team of the pawn, which decides the direction it attacks in
+     * @param square The square of the pawn
+     * @return The (at most two) squares a pawn there attacks
+     */
+    public static long pawn(ChessGame.TeamColor teamColor, int square) {
+        return PAWN[teamColor.ordinal()][square];
+    }
+
+    /**
+     * @param square The square of the rook
+     * @param occupancy Every occupied square on the board
+     * @return Every square a rook there attacks, up to and including the first piece on each line
+     */
+    public static long rook(int square, long occupancy) {
+        return ROOK_MAGICS[square].attacks(occupancy);
+    }
+
+    /**
+     * @param square The square of the bishop
+     * @param occupancy Every occupied square on the board
+     * @return Every square a bishop there attacks, up to and including the first piece on each diagonal
+     */
+    public static long bishop(int square, long occupancy) {
+        return BISHOP_MAGICS[square].attacks(occupancy);
+    }
+
+    /**
+     * @param square The square of the queen
+     * @param occupancy Every occupied square on the board
+     * @return Every square a queen there attacks
+     */
+    public static long queen(int square, long occupancy) {
+        return rook(square, occupancy) | bishop(square, occupancy);
+    }
+
+    /**
+     * @param from One end of a line
+     * @param to The other end
+     * @return The squares strictly between `from` and `to` if they share a row, column or diagonal, else 0
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    private static void fillBetween(int from, int[][] directions) {
+        for (int[] direction : directions) {
+            long ray = 0L;
+            for (int r = ChessBoard.squareRow(from) + direction[0], c = ChessBoard.squareColumn(from) + direction[1];
+                 onBoard(r, c); r += direction[0], c += direction[1]) {
+                int to = ChessBoard.squareIndex(r, c);
+                BETWEEN[from][to] = ray;
+                ray |= 1L << to;
+            }
+        }
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        int row = ChessBoard.squareRow(square);
+        int col = ChessBoard.squareColumn(square);
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (onBoard(r, c)) {
+                attacks |= 1L << ChessBoard.squareIndex(r, c);
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row > 0 && col > 0 && row <= ChessBoard.BOARD_SIZE && col <= ChessBoard.BOARD_SIZE;
+    }
+
+    /**
+     * Walks the rays square by square. Only used to fill the tables.
+     */
+    private static long slowSlidingAttacks(int square, int[][] directions, long occupancy) {
+        int row = ChessBoard.squareRow(square);
+        int col = ChessBoard.squareColumn(square);
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            for (int r = row + direction[0], c = col + direction[1]; onBoard(r, c);
+                 r += direction[0], c += direction[1]) {
+                long bit = 1L << ChessBoard.squareIndex(r, c);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The squares whose occupancy can change the attacks from `square`: the rays without their
+     * last square, since a piece on the edge blocks nothing further.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        int row = ChessBoard.squareRow(square);
+        int col = ChessBoard.squareColumn(square);
+        long mask = 0L;
+        for (int[] direction : directions) {
+            for (int r = row + direction[0], c = col + direction[1];
+                 onBoard(r + direction[0], c + direction[1]);
+                 r += direction[0], c += direction[1]) {
+                mask |= 1L << ChessBoard.squareIndex(r, c);
+            }
+        }
+        return mask;
+    }
+
+    private static Magic findMagic(int square, int[][] directions, SplittableRandom random) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] blockers = new long[size];
+        long[] reference = new long[size];
+        // Enumerate every subset of the mask (Carry-Rippler)
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            blockers[i] = subset;
+            reference[i] = slowSlidingAttacks(square, directions, subset);
+            subset = (subset - mask) & mask;
+        }
+        int shift = Long.SIZE - bits;
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            // Sparse candidates are far more likely to work
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+                continue;
+            }
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((blockers[i] * magic) >>> shift);
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[index] = reference[i];
+                } else if (table[index] != reference[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                return new Magic(mask, magic, shift, table);
+            }
+        }
+    }
+
+    private record Magic(long mask, long magic, int shift, long[] table) {
+        long attacks(long occupancy) {
+            return table[(int) (((occupancy & mask) * magic) >>> shift)];
+        }
+    }
+}
@@ -27,9 +27,27 @@ public class ChessBoard {
     public static final int ROOK_2_COL     = 8;
 
     public static final int BOARD_SIZE     = 8;
-
-    private final HashMap<ChessPosition, ChessPiece> board = new HashMap<>();
-    private Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleRequirements = new EnumMap<>(TeamColor.class);
+    public static final int SQUARE_COUNT   = BOARD_SIZE * BOARD_SIZE;
+
+    private static final int PIECE_KINDS   = TeamColor.values().length * PieceType.values().length;
+
+    // One bitboard per team/piece type pair, bit `squareIndex(row, col)` is set when that piece stands there
+    private final long[] pieceBitboards = new long[PIECE_KINDS];
+    private final long[] teamOccupancy = new long[TeamColor.values().length];
+    private long occupancy;
+    // Mailbox mirror of the bitboards so single square lookups stay a plain array read
+    private final ChessPiece[] squares = new ChessPiece[SQUARE_COUNT];
+    private final Map<ChessPosition, ChessPiece> boardMap = new BoardMapView();
+    // One bit per team/castle piece/castle type requirement, see `castleBit()`
+    private int castleRights;
+    // Zobrist key of the pieces, castle rights and En passant options, kept up to date by every change
+    private long zobristKey;
+    // Zobrist key of the pawns alone, for caching pawn structure evaluations
+    private long pawnKey;
+    // Material plus piece-square values from white's point of view, and the game phase, see `PieceSquareTables`
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
 
     private ChessPosition whiteKingPos;
     private ChessPosition blackKingPos;
@@ -37,38 +55,94 @@ public class ChessBoard {
     private ChessPosition enPassantBlack;
 
     public ChessBoard() {
-        // Initialize the Castle map for both teams
+        // Every castle requirement starts unmet
+        castleRights = 0;
+    }
+
+    /**
+     * Gets a live map view of the occupied squares. Writes through to the board,
+     * and iteration is ordered from a1 to h8.
+     *
+     * @return Map of every occupied position to its piece
+     */
+    public Map<ChessPosition, ChessPiece> getBoardMap() {
+        return boardMap;
+    }
+
+    /**
+     * Builds a snapshot of the castle requirements. Changes to the returned map are not written back,
+     * use `setCastleStatus()` or `setCastleRequirements()` instead.
+     *
+     * @return Every castle requirement for both teams
+     */
+    public Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> getCastleRequirements() {
+        Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleRequirements = new EnumMap<>(TeamColor.class);
         for (TeamColor teamColor : TeamColor.values()) {
             Map<CastlePieceTypes, Map<CastleType, Boolean>> pieceTypeMap = new EnumMap<>(CastlePieceTypes.class);
-            castleRequirements.put(teamColor, pieceTypeMap);
-
-            // Each piece type will initialize with false values
             for (CastlePieceTypes pieceType : CastlePieceTypes.values()) {
                 Map<CastleType, Boolean> castleTypeMap = new EnumMap<>(CastleType.class);
-                castleTypeMap.put(CastleType.KING_SIDE, false);
-                castleTypeMap.put(CastleType.QUEEN_SIDE, false);
+                for (CastleType castleType : CastleType.values()) {
+                    castleTypeMap.put(castleType, (castleRights & castleBit(teamColor, pieceType, castleType)) != 0);
+                }
                 pieceTypeMap.put(pieceType, castleTypeMap);
             }
+            castleRequirements.put(teamColor, pieceTypeMap);
         }
+        return castleRequirements;
     }
 
-    public Map<ChessPosition, ChessPiece> getBoardMap() {
-        return board;
+    /**
+     * Replaces every castle requirement. Missing entries are treated as unmet.
+     *
+     * @param castleReqs The castle requirements for both teams
+     */
+    public void setCastleRequirements(Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleReqs) {
+        int rights = 0;
+        for (Map.Entry<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> teamEntry : castleReqs.entrySet()) {
+            for (Map.Entry<CastlePieceTypes, Map<CastleType, Boolean>> pieceEntry : teamEntry.getValue().entrySet()) {
+                for (Map.Entry<CastleType, Boolean> castleEntry : pieceEntry.getValue().entrySet()) {
+                    if (Boolean.TRUE.equals(castleEntry.getValue())) {
+                        rights |= castleBit(teamEntry.getKey(), pieceEntry.getKey(), castleEntry.getKey());
+                    }
+                }
+            }
+        }
+        updateCastleRights(rights);
     }
 
-    public Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> getCastleRequirements() {
-        return castleRequirements;
+    /**
+     * @return Every castle requirement packed into bits, see `castleBit()`
+     */
+    public int getCastleRights() {
+        return castleRights;
     }
 
-    public void setCastleRequirements(Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> castleReqs) {
-        castleRequirements = castleReqs;
+    /**
+     * Replaces every castle requirement with a value from `getCastleRights()`
+     *
+     * @param castleRights The packed castle requirements
+     */
+    public void setCastleRights(int castleRights) {
+        updateCastleRights(castleRights);
+    }
+
+    /**
+     * @return The bit of `getCastleRights()` that stores this castle requirement
+     */
+    public static int castleBit(TeamColor teamColor, CastlePieceTypes pieceType, CastleType castleType) {
+        int index = (teamColor.ordinal() * CastlePieceTypes.values().length + pieceType.ordinal())
+                * CastleType.values().length + castleType.ordinal();
+        return 1 << index;
     }
 
     public void addPieceMidGame(ChessPosition position, ChessPiece piece) {
         if (piece == null) {
             return;
         }
-        board.put(position, piece);
+        if (!isOnBoard(position)) {
+            throw new IllegalArgumentException("Position is off the board: " + position);
+        }
+        placePiece(squareIndex(position), piece);
 
         // Update the position for the king if it moved
         if (piece.getPieceType() == PieceType.KING) {
@@ -104,10 +178,44 @@ public class ChessBoard {
      *
      * @param position The position to get the piece from
      * @return Either the piece at the position, or null if no piece is at that
-     * position
+     * position or it is off the board
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board.get(position);
+        if (!isOnBoard(position)) {
+            return null;
+        }
+        return squares[squareIndex(position)];
+    }
+
+    /**
+     * `ChessPosition` only checks the row, so positions read from a client may have any column
+     *
+     * @return True if the position's column is on the board
+     */
+    public static boolean isOnBoard(ChessPosition position) {
+        int col = position.getColumn();
+        return col >= 1 && col <= BOARD_SIZE;
+    }
+
+    /**
+     * Gets a chess piece on the chessboard without needing a ChessPosition
+     *
+     * @param row The row of the square, 1 codes for the bottom row
+     * @param col The column of the square, 1 codes for the left column
+     * @return Either the piece at the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int row, int col) {
+        return squares[squareIndex(row, col)];
+    }
+
+    /**
+     * Gets a chess piece on the chessboard by square index
+     *
+     * @param square The square index, see `squareIndex()`
+     * @return Either the piece at the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square];
     }
 
     /**
@@ -116,7 +224,206 @@ public class ChessBoard {
      * @return a Set of ChessPosition
      */
     public Set<ChessPosition> getAllPositions() {
-        return new HashSet<>(board.keySet());
+        return new HashSet<>(boardMap.keySet());
+    }
+
+    /**
+     * @param teamColor The team owning the pieces
+     * @param pieceType The type of the pieces
+     * @return Bitboard of every square holding a piece of this team and type
+     */
+    public long getPieceBitboard(TeamColor teamColor, PieceType pieceType) {
+        return pieceBitboards[pieceIndex(teamColor, pieceType)];
+    }
+
+    /**
+     * @param teamColor The team owning the pieces
+     * @return Bitboard of every square holding a piece of this team
+     */
+    public long getTeamOccupancy(TeamColor teamColor) {
+        return teamOccupancy[teamColor.ordinal()];
+    }
+
+    /**
+     * @return Bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square, using the precomputed tables in `Attacks`.
+     * Whatever stands on the square itself is ignored.
+     *
+     * @param square The square index to test
+     * @param byColor The attacking team
+     * @return True if a piece of `byColor` could capture on the square
+     */
+    public boolean isSquareAttacked(int square, TeamColor byColor) {
+        return attackersOf(square, byColor, occupancy) != 0L;
+    }
+
+    /**
+     * @param square The square index being attacked
+     * @param byColor The attacking team
+     * @param occupied The occupancy to trace sliding attacks through
+     * @return Bitboard of every piece of `byColor` attacking the square
+     */
+    public long attackersOf(int square, TeamColor byColor, long occupied) {
+        int team = byColor.ordinal() * PieceType.values().length;
+        long queens = pieceBitboards[team + PieceType.QUEEN.ordinal()];
+        TeamColor defender = byColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        // A pawn of `byColor` attacks the square exactly when a defending pawn there would attack it
+        return (Attacks.pawn(defender, square) & pieceBitboards[team + PieceType.PAWN.ordinal()])
+                | (Attacks.knight(square) & pieceBitboards[team + PieceType.KNIGHT.ordinal()])
+                | (Attacks.king(square) & pieceBitboards[team + PieceType.KING.ordinal()])
+                | (Attacks.bishop(square, occupied) & (pieceBitboards[team + PieceType.BISHOP.ordinal()] | queens))
+                | (Attacks.rook(square, occupied) & (pieceBitboards[team + PieceType.ROOK.ordinal()] | queens));
+    }
+
+    /**
+     * Converts board coordinates to a square index. a1 is 0, h1 is 7 and h8 is 63.
+     *
+     * @param row The row, 1 codes for the bottom row
+     * @param col The column, 1 codes for the left column
+     * @return The square index used by the bitboards
+     */
+    public static int squareIndex(int row, int col) {
+        return (row - 1) * BOARD_SIZE + (col - 1);
+    }
+
+    public static int squareIndex(ChessPosition position) {
+        return squareIndex(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @param square A square index
+     * @return The row of the square, 1 codes for the bottom row
+     */
+    public static int squareRow(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @param square A square index
+     * @return The column of the square, 1 codes for the left column
+     */
+    public static int squareColumn(int square) {
+        return (square & 7) + 1;
+    }
+
+    private static int pieceIndex(TeamColor teamColor, PieceType pieceType) {
+        return teamColor.ordinal() * PieceType.values().length + pieceType.ordinal();
+    }
+
+    /**
+     * Puts a piece on a square, replacing whatever was there. Keeps the bitboards and mailbox in sync.
+     */
+    void placePiece(int square, ChessPiece piece) {
+        if (squares[square] != null) {
+            clearSquare(square);
+        }
+        long bit = 1L << square;
+        int pieceIndex = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[pieceIndex] |= bit;
+        zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        updateEvaluation(piece, pieceIndex, square, 1);
+        teamOccupancy[piece.getTeamColor().ordinal()] |= bit;
+        occupancy |= bit;
+        squares[square] = piece;
+    }
+
+    /**
+     * Empties a square. Keeps the bitboards and mailbox in sync.
+     *
+     * @return The piece that was removed, or null if the square was empty
+     */
+    ChessPiece clearSquare(int square) {
+        ChessPiece piece = squares[square];
+        if (piece == null) {
+            return null;
+        }
+        long bit = ~(1L << square);
+        int pieceIndex = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        pieceBitboards[pieceIndex] &= bit;
+        zobristKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        updateEvaluation(piece, pieceIndex, square, -1);
+        teamOccupancy[piece.getTeamColor().ordinal()] &= bit;
+        occupancy &= bit;
+        squares[square] = null;
+        return piece;
+    }
+
+    private void updateEvaluation(ChessPiece piece, int pieceIndex, int square, int sign) {
+        middlegameScore += sign * PieceSquareTables.MIDDLEGAME[pieceIndex][square];
+        endgameScore += sign * PieceSquareTables.ENDGAME[pieceIndex][square];
+        phase += sign * PieceSquareTables.PHASE[pieceIndex];
+        if (piece.getPieceType() == PieceType.PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[pieceIndex][square];
+        }
+    }
+
+    private void clearAllSquares() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(teamOccupancy, 0L);
+        Arrays.fill(squares, null);
+        occupancy = 0L;
+        pawnKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        zobristKey = Zobrist.CASTLE_RIGHTS[castleRights] ^ enPassantKey(enPassantWhite, Zobrist.EN_PASSANT_WHITE)
+                ^ enPassantKey(enPassantBlack, Zobrist.EN_PASSANT_BLACK);
+    }
+
+    private void updateCastleRights(int newRights) {
+        zobristKey ^= Zobrist.CASTLE_RIGHTS[castleRights] ^ Zobrist.CASTLE_RIGHTS[newRights];
+        castleRights = newRights;
+    }
+
+    private static long enPassantKey(ChessPosition enPassantPosition, long[] keys) {
+        if (enPassantPosition == null) {
+            return 0L;
+        }
+        return keys[enPassantPosition.getColumn() - 1];
+    }
+
+    /**
+     * Gets the Zobrist key of this board. It covers the pieces, castle requirements and En passant options,
+     * and is updated incrementally by every change to the board, so reading it is free.
+     *
+     * @return 64-bit hash of the position, see `ChessGame.positionKey()` to include the team to move
+     */
+    public long positionKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return Zobrist key of the pawns alone, both teams
+     */
+    public long pawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return Material and piece-square total for the middlegame, positive when white is ahead
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * @return Material and piece-square total for the endgame, positive when white is ahead
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return How much non-pawn material is left, from 0 up to `PieceSquareTables.MAX_PHASE` at the start
+     */
+    public int getPhase() {
+        return phase;
     }
 
     /**
@@ -130,7 +437,7 @@ public class ChessBoard {
             if (piece.getPieceType() == PieceType.KING) {
                 setKingPos(null, piece.getTeamColor());
             }
-            board.remove(position);
+            clearSquare(squareIndex(position));
         }
     }
 
@@ -184,8 +491,12 @@ public class ChessBoard {
      */
     public void setEnPassant(ChessPosition enPassantPosition, ChessGame.TeamColor teamColor) {
         if (teamColor == ChessGame.TeamColor.WHITE) {
+            zobristKey ^= enPassantKey(enPassantBlack, Zobrist.EN_PASSANT_BLACK)
+                    ^ enPassantKey(enPassantPosition, Zobrist.EN_PASSANT_BLACK);
             enPassantBlack = enPassantPosition;
         } else {
+            zobristKey ^= enPassantKey(enPassantWhite, Zobrist.EN_PASSANT_WHITE)
+                    ^ enPassantKey(enPassantPosition, Zobrist.EN_PASSANT_WHITE);
             enPassantWhite = enPassantPosition;
         }
     }
@@ -197,8 +508,10 @@ public class ChessBoard {
      */
     public void clearEnPassant(ChessGame.TeamColor teamColor) {
         if (teamColor == ChessGame.TeamColor.WHITE) {
+            zobristKey ^= enPassantKey(enPassantWhite, Zobrist.EN_PASSANT_WHITE);
             enPassantWhite = null;
         } else {
+            zobristKey ^= enPassantKey(enPassantBlack, Zobrist.EN_PASSANT_BLACK);
             enPassantBlack = null;
         }
     }
@@ -237,14 +550,14 @@ public class ChessBoard {
 
         if (pieceType == CastlePieceTypes.KING) {
             if (col == KING_COL) {
-                castleRequirements.get(teamColor).get(pieceType).put(CastleType.KING_SIDE, true);
-                castleRequirements.get(teamColor).get(pieceType).put(CastleType.QUEEN_SIDE, true);
+                setCastleStatus(teamColor, pieceType, CastleType.KING_SIDE, true);
+                setCastleStatus(teamColor, pieceType, CastleType.QUEEN_SIDE, true);
             }
         } else if (pieceType == CastlePieceTypes.ROOK) {
             if (col == ROOK_1_COL) {
-                castleRequirements.get(teamColor).get(pieceType).put(CastleType.QUEEN_SIDE, true);
+                setCastleStatus(teamColor, pieceType, CastleType.QUEEN_SIDE, true);
             } else if (col == ROOK_2_COL) {
-                castleRequirements.get(teamColor).get(pieceType).put(CastleType.KING_SIDE, true);
+                setCastleStatus(teamColor, pieceType, CastleType.KING_SIDE, true);
             }
         }
     }
@@ -254,9 +567,9 @@ public class ChessBoard {
      * @return True if this team still has a castle move
      */
     public boolean getCastleStatus(ChessGame.TeamColor teamColor, CastleType castleType) {
-        boolean isKing = castleRequirements.get(teamColor).get(CastlePieceTypes.KING).get(castleType);
-        boolean isRook = castleRequirements.get(teamColor).get(CastlePieceTypes.ROOK).get(castleType);
-        return isKing && isRook;
+        int required = castleBit(teamColor, CastlePieceTypes.KING, castleType)
+                | castleBit(teamColor, CastlePieceTypes.ROOK, castleType);
+        return (castleRights & required) == required;
     }
 
     /**
@@ -266,7 +579,11 @@ public class ChessBoard {
      * @param enable If true, enables castling, otherwise disables it
      */
     public void setCastleStatus(ChessGame.TeamColor teamColor, CastlePieceTypes castlePiece, CastleType castleType, boolean enable) {
-        castleRequirements.get(teamColor).get(castlePiece).put(castleType, enable);
+        if (enable) {
+            updateCastleRights(castleRights | castleBit(teamColor, castlePiece, castleType));
+        } else {
+            updateCastleRights(castleRights & ~castleBit(teamColor, castlePiece, castleType));
+        }
     }
 
     /**
@@ -289,12 +606,12 @@ public class ChessBoard {
         int diff = endPosCol - move.getStartPosition().getColumn();
         if (diff > 0) {
             // KingSide
-            oldLocation = new ChessPosition(row, BOARD_SIZE);
-            newLocation = new ChessPosition(row, endPosCol - 1);
+            oldLocation = ChessPosition.of(row, BOARD_SIZE);
+            newLocation = ChessPosition.of(row, endPosCol - 1);
         } else {
             // QueenSide
-            oldLocation = new ChessPosition(row, 1);
-            newLocation = new ChessPosition(row, endPosCol + 1);
+            oldLocation = ChessPosition.of(row, 1);
+            newLocation = ChessPosition.of(row, endPosCol + 1);
         }
         ChessPiece movingPiece = getPiece(oldLocation);
         removePiece(oldLocation);
@@ -316,7 +633,7 @@ public class ChessBoard {
             row = enPassantBlack.getRow() + ChessPiece.WHITE_DIRECTION;
             col = enPassantBlack.getColumn();
         }
-        removePiece(new ChessPosition(row, col));
+        removePiece(ChessPosition.of(row, col));
     }
 
     /**
@@ -332,36 +649,36 @@ public class ChessBoard {
         } else {
             row = WHITE_ROW;
         }
-        ChessPosition position = new ChessPosition(row, ROOK_1_COL);
-        ChessPiece piece = new ChessPiece(teamColor, ChessPiece.PieceType.ROOK);
+        ChessPosition position = ChessPosition.of(row, ROOK_1_COL);
+        ChessPiece piece = ChessPiece.of(teamColor, ChessPiece.PieceType.ROOK);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, KNIGHT_1_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.KNIGHT);
+        position = ChessPosition.of(row, KNIGHT_1_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.KNIGHT);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, BISHOP_1_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.BISHOP);
+        position = ChessPosition.of(row, BISHOP_1_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.BISHOP);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, QUEEN_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.QUEEN);
+        position = ChessPosition.of(row, QUEEN_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.QUEEN);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, KING_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.KING);
+        position = ChessPosition.of(row, KING_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.KING);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, BISHOP_2_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.BISHOP);
+        position = ChessPosition.of(row, BISHOP_2_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.BISHOP);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, KNIGHT_2_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.KNIGHT);
+        position = ChessPosition.of(row, KNIGHT_2_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.KNIGHT);
         addPiece(position, piece);
 
-        position = new ChessPosition(row, ROOK_2_COL);
-        piece = new ChessPiece(teamColor, ChessPiece.PieceType.ROOK);
+        position = ChessPosition.of(row, ROOK_2_COL);
+        piece = ChessPiece.of(teamColor, ChessPiece.PieceType.ROOK);
         addPiece(position, piece);
     }
 
@@ -379,8 +696,8 @@ public class ChessBoard {
             row = BLACK_PAWN_ROW;
         }
         for (int col = 1; col <= BOARD_SIZE; col++) {
-            ChessPosition position = new ChessPosition(row, col);
-            ChessPiece piece = new ChessPiece(teamColor, ChessPiece.PieceType.PAWN);
+            ChessPosition position = ChessPosition.of(row, col);
+            ChessPiece piece = ChessPiece.of(teamColor, ChessPiece.PieceType.PAWN);
             addPiece(position, piece);
         }
     }
@@ -390,7 +707,7 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        board.clear();
+        clearAllSquares();
         initializeCapitalPieces(ChessGame.TeamColor.WHITE);
         initializeCapitalPieces(ChessGame.TeamColor.BLACK);
         initializePawns(ChessGame.TeamColor.WHITE);
@@ -398,63 +715,143 @@ public class ChessBoard {
     }
 
     /**
-     * Removes all keys that store null
+     * Removes all keys that store null. Empty squares are never stored, so there is nothing to sweep.
      */
     public void cleanBoard() {
-        board.entrySet().removeIf(entry -> entry.getValue() == null);
     }
 
     public ChessBoard copy() {
         ChessBoard copy = new ChessBoard();
-        copy.board.putAll(this.board);
-        copy.setCastleRequirements(deepCopyCastleRequirements());
+        System.arraycopy(pieceBitboards, 0, copy.pieceBitboards, 0, PIECE_KINDS);
+        System.arraycopy(teamOccupancy, 0, copy.teamOccupancy, 0, teamOccupancy.length);
+        System.arraycopy(squares, 0, copy.squares, 0, SQUARE_COUNT);
+        copy.occupancy = occupancy;
+        copy.castleRights = castleRights;
         copy.setKingPos(whiteKingPos, TeamColor.WHITE);
         copy.setKingPos(blackKingPos, TeamColor.BLACK);
-        // Reversed colors since enPassant is available for other team...
-        copy.setEnPassant(enPassantWhite, TeamColor.BLACK);
-        copy.setEnPassant(enPassantBlack, TeamColor.WHITE);
-        return copy;
-    }
-
-    private Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> deepCopyCastleRequirements() {
-        Map<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> copy =
-                new EnumMap<>(TeamColor.class);
-
-        for (Map.Entry<TeamColor, Map<CastlePieceTypes, Map<CastleType, Boolean>>> teamEntry : castleRequirements.entrySet()) {
-            Map<CastlePieceTypes, Map<CastleType, Boolean>> middleMapCopy =
-                    new EnumMap<>(CastlePieceTypes.class);
-
-            for (Map.Entry<CastlePieceTypes, Map<CastleType, Boolean>> pieceEntry : teamEntry.getValue().entrySet()) {
-                Map<CastleType, Boolean> innerMapCopy =
-                        new EnumMap<>(CastleType.class);
-
-                innerMapCopy.putAll(pieceEntry.getValue());
-
-                middleMapCopy.put(pieceEntry.getKey(), innerMapCopy);
-            }
-
-            copy.put(teamEntry.getKey(), middleMapCopy);
-        }
-
+        copy.enPassantWhite = enPassantWhite;
+        copy.enPassantBlack = enPassantBlack;
+        // Every field above is copied as is, so the key can be too
+        copy.zobristKey = zobristKey;
+        copy.pawnKey = pawnKey;
+        copy.middlegameScore = middlegameScore;
+        copy.endgameScore = endgameScore;
+        copy.phase = phase;
         return copy;
     }
 
-
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.equals(board, that.board) && Objects.equals(whiteKingPos, that.whiteKingPos) &&
+        return Arrays.equals(pieceBitboards, that.pieceBitboards) && Objects.equals(whiteKingPos, that.whiteKingPos) &&
                 Objects.equals(blackKingPos, that.blackKingPos) &&
                 Objects.equals(enPassantWhite, that.enPassantWhite) &&
                 Objects.equals(enPassantBlack, that.enPassantBlack) &&
-                Objects.equals(castleRequirements, that.castleRequirements);
+                castleRights == that.castleRights;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, whiteKingPos, blackKingPos, enPassantWhite, enPassantBlack, castleRequirements);
+        return Long.hashCode(zobristKey);
+    }
+
+    /**
+     * Map view over the mailbox so callers of `getBoardMap()` keep working on top of the bitboards.
+     * Only occupied squares are present; putting a null piece empties the square.
+     */
+    private class BoardMapView extends AbstractMap<ChessPosition, ChessPiece> {
+        private final Set<Entry<ChessPosition, ChessPiece>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<ChessPosition, ChessPiece>> iterator() {
+                return new Iterator<>() {
+                    private long remaining = occupancy;
+                    private int lastSquare = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining != 0;
+                    }
+
+                    @Override
+                    public Entry<ChessPosition, ChessPiece> next() {
+                        if (remaining == 0) {
+                            throw new NoSuchElementException();
+                        }
+                        lastSquare = Long.numberOfTrailingZeros(remaining);
+                        remaining &= remaining - 1;
+                        ChessPosition position = ChessPosition.ofSquare(lastSquare);
+                        return new SimpleImmutableEntry<>(position, squares[lastSquare]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (lastSquare < 0) {
+                            throw new IllegalStateException();
+                        }
+                        clearSquare(lastSquare);
+                        lastSquare = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Long.bitCount(occupancy);
+            }
+        };
+
+        @Override
+        public Set<Entry<ChessPosition, ChessPiece>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(occupancy);
+        }
+
+        @Override
+        public ChessPiece get(Object key) {
+            if (key instanceof ChessPosition position && isOnBoard(position)) {
+                return squares[squareIndex(position)];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public ChessPiece put(ChessPosition position, ChessPiece piece) {
+            if (!isOnBoard(position)) {
+                throw new IllegalArgumentException("Position is off the board: " + position);
+            }
+            int square = squareIndex(position);
+            ChessPiece previous = squares[square];
+            if (piece == null) {
+                clearSquare(square);
+            } else {
+                placePiece(square, piece);
+            }
+            return previous;
+        }
+
+        @Override
+        public ChessPiece remove(Object key) {
+            if (key instanceof ChessPosition position && isOnBoard(position)) {
+                return clearSquare(squareIndex(position));
+            }
+            return null;
+        }
+
+        @Override
+        public void clear() {
+            clearAllSquares();
+        }
     }
 }
@@ -15,6 +15,42 @@ public class ChessGame {
     private TeamColor teamTurn = TeamColor.WHITE;
     private boolean gameOver = false;
 
+    // Preallocated undo records, reused by every make/unmake pair
+    private UndoRecord[] undoStack = new UndoRecord[INITIAL_UNDO_CAPACITY];
+    private int undoCount = 0;
+
+    private static final int INITIAL_UNDO_CAPACITY = 128;
+
+    /** Plies without a capture or pawn move after which the game is drawn */
+    public static final int FIFTY_MOVE_PLIES = 100;
+
+    // Repetition key (see `repetitionKey()`) of the position before every move, oldest first.
+    // Unlike the undo stack it survives `copy()`.
+    private long[] keyHistory = new long[INITIAL_UNDO_CAPACITY];
+    // Earlier occurrences of each position in `keyHistory` since the last capture or pawn move,
+    // -1 until a repetition check needs it
+    private int[] repetitionHistory = new int[INITIAL_UNDO_CAPACITY];
+    private int historyCount = 0;
+    // Plies since the last capture or pawn move
+    private int halfmoveClock = 0;
+
+    /**
+     * Room a move buffer needs for every legal move of any position
+     */
+    public static final int MAX_MOVES = 256;
+
+    // Scratch buffer for validMoves() and the game status checks, which do not recurse
+    private final int[] pieceMoveBuffer = new int[ChessPiece.MAX_PIECE_MOVES];
+    private final MoveGenerator moveGenerator = new MoveGenerator();
+
+    // Legal moves of the team to move, generated once per position and shared by makeMove(), validMoves()
+    // and the game status checks. Stale as soon as the board, its key or the team to move differ.
+    private final int[] legalMoveCache = new int[MAX_MOVES];
+    private int legalMoveCount = 0;
+    private ChessBoard cachedBoard = null;
+    private long cachedKey;
+    private TeamColor cachedTeam;
+
     public ChessGame() {
         gameBoard.resetBoard();
     }
@@ -36,18 +72,10 @@ public class ChessGame {
     }
 
     /**
-     * Switches current turn to the other team
+     * @return True if the game was ended with `setGameOver()` or is drawn, see `isDraw()`
      */
-    private void toggleTeamTurn() {
-        if (teamTurn == TeamColor.WHITE) {
-            teamTurn = TeamColor.BLACK;
-        } else {
-            teamTurn = TeamColor.WHITE;
-        }
-    }
-
     public boolean isGameOver() {
-        return gameOver;
+        return gameOver || isDraw();
     }
 
     public void setGameOver(boolean gameOver) {
@@ -74,88 +102,92 @@ public class ChessGame {
         if (chosenPiece == null) {
             return null;
         }
-        TeamColor pieceTeam = chosenPiece.getTeamColor();
-        HashSet<ChessMove> allMoves = new HashSet<>(chosenPiece.pieceMoves(gameBoard, startPosition));
- 
-        Iterator<ChessMove> iterator = allMoves.iterator();
-        while (iterator.hasNext()) {
-            ChessMove move = iterator.next();
-            ChessPosition moveDest = move.getEndPosition();
-
-            // Make the move
-            gameBoard.removePiece(startPosition);
-            // If there is a piece at the destination, save it
-            ChessPiece destPiece = gameBoard.getPiece(moveDest);
-            gameBoard.addPieceMidGame(moveDest, chosenPiece);
-
-            // Safely remove if in check
-            if (isInCheck(pieceTeam)) {
-                iterator.remove();
+        int from = ChessBoard.squareIndex(startPosition);
+        HashSet<ChessMove> allMoves = new HashSet<>();
+        if (chosenPiece.getTeamColor() == teamTurn) {
+            refreshLegalMoves();
+            for (int i = 0; i < legalMoveCount; i++) {
+                if (PackedMove.from(legalMoveCache[i]) == from) {
+                    allMoves.add(PackedMove.toChessMove(legalMoveCache[i]));
+                }
             }
-
-            // Move back
-            gameBoard.removePiece(moveDest);
-            // Add back saved destination piece
-            gameBoard.addPieceMidGame(moveDest, destPiece);
-            // Add back moving piece
-            gameBoard.addPieceMidGame(startPosition, chosenPiece);
+            return allMoves;
+        }
+        int count = moveGenerator.generateLegalMoves(gameBoard, from, pieceMoveBuffer, 0);
+        for (int i = 0; i < count; i++) {
+            allMoves.add(PackedMove.toChessMove(pieceMoveBuffer[i]));
         }
-        castleInvalidate(chosenPiece, startPosition, allMoves);
-        gameBoard.cleanBoard(); // Remove keys that store null
         return allMoves;
     }
 
     /**
-     * Removes a castling move if the adjacent move no longer exists. King Passes through check.
-     * @param movingPiece The piece that should be a king. If not a king the function returns early
-     * @param startPosition The starting position of the king. Useful for referring to the adjacent locations.
-     *                      This is not checked for starting board location because adding
-     *                      the move is handled elsewhere.
-     * @param allMoves All the moves that passed the validMoves filter
+     * Forgets the cached legal moves, so the next call that needs them generates them again.
+     * Never needed for correctness, it lets benchmarks measure the uncached path without copying the game.
+     */
+    public void clearMoveCache() {
+        cachedBoard = null;
+    }
+
+    /**
+     * Regenerates the cached legal moves if the position changed since they were generated.
+     * Comparing the position key also catches changes made directly through `getBoard()`.
      */
-    private void castleInvalidate(ChessPiece movingPiece, ChessPosition startPosition, Collection<ChessMove> allMoves) {
-        if (movingPiece.getPieceType() != PieceType.KING) {
+    private void refreshLegalMoves() {
+        long key = gameBoard.positionKey();
+        if (cachedBoard == gameBoard && cachedKey == key && cachedTeam == teamTurn) {
             return;
         }
-        int row = startPosition.getRow();
-        int col = startPosition.getColumn();
-        ChessPosition castleKingSidePos = new ChessPosition(row, col + 2);
-        ChessMove castleKing = new ChessMove(startPosition, castleKingSidePos, null);
-        ChessMove adjKingSide = new ChessMove(startPosition, new ChessPosition(row , col + 1), null);
-        ChessPosition castleQueenSidePos = new ChessPosition(row, col - 2);
-        ChessMove castleQueen = new ChessMove(startPosition, castleQueenSidePos, null);
-        ChessMove adjQueenSide = new ChessMove(startPosition, new ChessPosition(row , col - 1), null);
-        if (allMoves.contains(castleKing) && !allMoves.contains(adjKingSide)) {
-            allMoves.remove(castleKing);
-        }
-        if (allMoves.contains(castleQueen) && !allMoves.contains(adjQueenSide)) {
-            allMoves.remove(castleQueen);
-        }
+        legalMoveCount = moveGenerator.generateLegalMoves(gameBoard, teamTurn, legalMoveCache, 0);
+        cachedBoard = gameBoard;
+        cachedKey = key;
+        cachedTeam = teamTurn;
     }
 
     /**
-     * Adds an En passant option to the board if it becomes available because of `move`.
-     * Assumes that `move` exists in `availableMoves`.
+     * Writes every legal move of the team whose turn it is into a buffer, as packed moves (see `PackedMove`).
+     * Nothing is allocated, so this is the entry point for search and perft.
      *
-     * @param move The move that may be a double move for pawn
-     * @param availableMoves Assumes not null. The moves that the pawn could take legally.
-     */
-    private void checkForEnPassant(ChessMove move, Collection<ChessMove> availableMoves) {
-        // Loop over the collection, when move is equal to one of the available moves
-        //      use the available move to check for a double move
-        for (ChessMove storedMove : availableMoves) {
-            if (storedMove.equals(move) && storedMove.isDoublePawnMove()) {
-                ChessPosition endPosition = move.getEndPosition();
-                int enPassantRow = endPosition.getRow();
-                if (teamTurn == TeamColor.WHITE) {
-                    enPassantRow = enPassantRow - ChessPiece.WHITE_DIRECTION;
-                } else {
-                    enPassantRow = enPassantRow - ChessPiece.BLACK_DIRECTION;
-                }
-                gameBoard.setEnPassant(new ChessPosition(enPassantRow, endPosition.getColumn()), teamTurn);
-                break;  // No need to continue
+     * @param moves The buffer to write to, needs room for `MAX_MOVES` moves from `start`
+     * @param start The index to write the first move at
+     * @return The index after the last move written
+     */
+    public int generateLegalMoves(int[] moves, int start) {
+        return moveGenerator.generateLegalMoves(gameBoard, teamTurn, moves, start);
+    }
+
+    /**
+     * Like `generateLegalMoves()`, but only captures and promotions (see `PackedMove.isTactical()`)
+     */
+    public int generateTacticalMoves(int[] moves, int start) {
+        return moveGenerator.generateLegalMoves(gameBoard, teamTurn, moves, start, MoveGenerator.TACTICAL);
+    }
+
+    /**
+     * Like `generateLegalMoves()`, but only the moves `generateTacticalMoves()` leaves out
+     */
+    public int generateQuietMoves(int[] moves, int start) {
+        return moveGenerator.generateLegalMoves(gameBoard, teamTurn, moves, start, MoveGenerator.QUIET);
+    }
+
+    /**
+     * Checks a packed move, for example one remembered from another position, without generating
+     * every move of the position. Only the moves of the piece on the start square are generated.
+     *
+     * @param move A packed move, flags included
+     * @return True if the team to move can play exactly this move
+     */
+    public boolean isLegalMove(int move) {
+        ChessPiece piece = gameBoard.getPiece(PackedMove.from(move));
+        if (move == PackedMove.NONE || piece == null || piece.getTeamColor() != teamTurn) {
+            return false;
+        }
+        int count = moveGenerator.generateLegalMoves(gameBoard, PackedMove.from(move), pieceMoveBuffer, 0);
+        for (int i = 0; i < count; i++) {
+            if (pieceMoveBuffer[i] == move) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -165,7 +197,7 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        if (gameOver) {
+        if (isGameOver()) {
             throw new InvalidMoveException("Game over");
         }
         ChessPosition startPosition = move.getStartPosition();
@@ -175,280 +207,251 @@ public class ChessGame {
         } else if (movingPiece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("Piece does not belong to current player");
         }
-
-        Collection<ChessMove> availableMoves = validMoves(startPosition);
-        if(availableMoves != null && availableMoves.contains(move)) {
-            gameBoard.removePiece(startPosition);
-            ChessPiece.PieceType promo = move.getPromotionPiece();
-
-            PieceType mPieceType = movingPiece.getPieceType();
-            if (promo != null) {
-                movingPiece.setPieceType(promo);
-            } else if (mPieceType == PieceType.KING) {
-                // Perform additional steps if this is a castling move
-                ChessBoard.CastleType castleType = move.isCastleMove(mPieceType);
-                if (castleType != null) {
-                    gameBoard.moveCastleRook(move, teamTurn);
-                    // Rook moves, make sure that it is not seen as in its valid position anymore
-                    // (needed to compare boards properly)
-                    gameBoard.setCastleStatus(teamTurn, ChessBoard.CastlePieceTypes.ROOK, castleType, false);
-                }
-                // Remove castling options from the king and from the rook that moved, only these because it will
-                // help match some random board in the test cases.
-                gameBoard.setCastleStatus(teamTurn, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.KING_SIDE, false);
-                gameBoard.setCastleStatus(teamTurn, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.QUEEN_SIDE, false);
-            } else if (mPieceType == PieceType.ROOK) {
-                // Remove the castling option for just this rook
-                int startCol = startPosition.getColumn();
-                if (startCol == ChessBoard.BOARD_SIZE) {
-                    gameBoard.setCastleStatus(teamTurn, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.KING_SIDE, false);
-                } else if (startCol == 1) {
-                    gameBoard.setCastleStatus(teamTurn, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.QUEEN_SIDE, false);
-                }
-            } else if (mPieceType == PieceType.PAWN) {
-                checkForEnPassant(move, availableMoves);
-                if (move.getEndPosition().equals(gameBoard.getEnPassant(teamTurn))) {
-                    gameBoard.captureEnPassant(teamTurn);
-                }
-            }
-            gameBoard.addPieceMidGame(move.getEndPosition(), movingPiece);
-            gameBoard.clearEnPassant(teamTurn);
-            toggleTeamTurn();
-
-        } else {
+        if (!ChessBoard.isOnBoard(move.getEndPosition())) {
             throw new InvalidMoveException("This move is not available");
         }
-    }
 
-    /**
-     * Determines if a horizontally attacking threat has the given king in check
-     * 
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @return True if the king is in check from a piece horizontal to it
-     */
-    private boolean checkThreatHorizontal(ChessPosition kingPos, TeamColor teamColor) {
-        int row = kingPos.getRow();
-        for (int h = -1; h <= 1; h += 2) {
-            for (int col = kingPos.getColumn() + h; col > 0 && col <= ChessBoard.BOARD_SIZE; col += h) {
-                Boolean inCheck = helperCheckThreat(kingPos, teamColor, row, col);
-                if (inCheck == null) {
-                    continue;
-                }
-                if (inCheck) {
-                    return true;
-                }
-                break;
+        refreshLegalMoves();
+        int wanted = PackedMove.of(ChessBoard.squareIndex(startPosition), ChessBoard.squareIndex(move.getEndPosition()),
+                move.getPromotionPiece(), PackedMove.NONE);
+        for (int i = 0; i < legalMoveCount; i++) {
+            int legalMove = legalMoveCache[i];
+            if (PackedMove.withoutFlags(legalMove) == wanted) {
+                makeMoveUnchecked(legalMove);
+                return;
             }
         }
-        return false;
+        throw new InvalidMoveException("This move is not available");
     }
 
     /**
-     * Determines if a vertically attacking threat has the given king in check
-     * 
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @return True if the king is in check from a piece vertical to it
+     * Makes a move without checking that it is legal, recording what is needed to take it back
+     * with `unmakeMove()`. The move must at least start on a square holding a piece.
+     * The turn passes to the team that did not move.
+     *
+     * @param move The move to play
      */
-    private boolean checkThreatVertical(ChessPosition kingPos, TeamColor teamColor) {
-        int col = kingPos.getColumn();
-        for (int v = -1; v <= 1; v += 2) {
-            for (int row = kingPos.getRow() + v; row > 0 && row <= ChessBoard.BOARD_SIZE; row += v) {
-                Boolean inCheck = helperCheckThreat(kingPos, teamColor, row, col);
-                if (inCheck == null) {
-                    continue;
-                }
-                if (inCheck) {
-                    return true;
-                }
-                break;
-            }
-        }
-        return false;
+    public void makeMoveUnchecked(ChessMove move) {
+        makeMoveUnchecked(PackedMove.fromChessMove(gameBoard, move));
     }
 
     /**
-     * Helper for determining if a horizontally or vertically attacking piece puts a king in check.
-     * Only for horizontal or vertical threats. Not pawns, bishops, or knights.
+     * Makes a packed move (see `PackedMove`) without checking that it is legal, recording what is
+     * needed to take it back with `unmakeMove()`. The flags of the move must match the board,
+     * as they do for moves from `generateLegalMoves()`.
      *
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @param row The row to currently check
-     * @param col The column to currently check
-     * @return True if there is a piece which puts the king in check, false is a piece is found, null otherwise
-     */
-    private Boolean helperCheckThreat(ChessPosition kingPos, TeamColor teamColor, int row, int col) {
-        ChessPosition threatPosition = new ChessPosition(row, col);
-        ChessPiece potentialThreat = gameBoard.getPiece(threatPosition);
-        if (potentialThreat != null) {
-            if (potentialThreat.getTeamColor() != teamColor) {
-                PieceType threatPieceType = potentialThreat.getPieceType();
-                if (threatPieceType == PieceType.ROOK || threatPieceType == PieceType.QUEEN) {
-                    return true;
-                }
-                return checkThreatByThreatMoves(potentialThreat, threatPieceType, false, kingPos, threatPosition);
+     * @param move The packed move to play
+     */
+    public void makeMoveUnchecked(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece movingPiece = gameBoard.getPiece(from);
+        TeamColor moverColor = movingPiece.getTeamColor();
+
+        pushHistory(repetitionKey());
+        UndoRecord undo = pushUndo();
+        undo.halfmoveClock = halfmoveClock;
+        undo.from = from;
+        undo.to = to;
+        undo.movedPiece = movingPiece;
+        undo.capturedPiece = gameBoard.getPiece(to);
+        undo.capturedSquare = to;
+        undo.rookFrom = -1;
+        undo.rookTo = -1;
+        undo.castleRights = gameBoard.getCastleRights();
+        undo.enPassantWhite = gameBoard.getEnPassant(TeamColor.WHITE);
+        undo.enPassantBlack = gameBoard.getEnPassant(TeamColor.BLACK);
+        undo.whiteKingPos = gameBoard.getKingPos(TeamColor.WHITE);
+        undo.blackKingPos = gameBoard.getKingPos(TeamColor.BLACK);
+        undo.teamTurn = teamTurn;
+
+        gameBoard.clearSquare(from);
+        ChessPiece placedPiece = movingPiece;
+        PieceType promo = PackedMove.promotion(move);
+        PieceType mPieceType = movingPiece.getPieceType();
+        if (promo != null) {
+            placedPiece = ChessPiece.of(moverColor, promo);
+        } else if (mPieceType == PieceType.KING) {
+            // Perform additional steps if this is a castling move
+            if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+                ChessBoard.CastleType castleType = to > from ? ChessBoard.CastleType.KING_SIDE
+                                                             : ChessBoard.CastleType.QUEEN_SIDE;
+                makeCastleRookMove(undo, castleType);
+                // Rook moves, make sure that it is not seen as in its valid position anymore
+                // (needed to compare boards properly)
+                gameBoard.setCastleStatus(moverColor, ChessBoard.CastlePieceTypes.ROOK, castleType, false);
             }
-            return false;
-        }
-        return null;
-    }
-
-    /**
-     * Determines if a diagonally attacking threat has the given king in check
-     * 
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @return True if the king is in check from a piece diagonal to it
-     */
-    private boolean checkThreatDiagonal(ChessPosition kingPos, TeamColor teamColor) {
-        for (int h = -1; h <= 1; h += 2) {
-            for (int v = -1; v <= 1; v += 2) {
-                for (int col = kingPos.getColumn() + h, row = kingPos.getRow() + v;
-                    col > 0 && col <= ChessBoard.BOARD_SIZE && row > 0 && row <= ChessBoard.BOARD_SIZE;
-                    col += h, row += v) {
-                    Boolean inCheck = helperCheckThreatDiagonal(kingPos, teamColor, row, col);
-                    if (inCheck == null) {
-                        continue;
-                    }
-                    if (inCheck) {
-                        return true;
-                    }
-                    break;
-                }
+            // Remove castling options from the king and from the rook that moved, only these because it will
+            // help match some random board in the test cases.
+            gameBoard.setCastleStatus(moverColor, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.KING_SIDE, false);
+            gameBoard.setCastleStatus(moverColor, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.QUEEN_SIDE, false);
+            gameBoard.setKingPos(ChessPosition.ofSquare(to), moverColor);
+        } else if (mPieceType == PieceType.ROOK) {
+            // Remove the castling option for just this rook
+            int startCol = ChessBoard.squareColumn(from);
+            if (startCol == ChessBoard.BOARD_SIZE) {
+                gameBoard.setCastleStatus(moverColor, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.KING_SIDE, false);
+            } else if (startCol == 1) {
+                gameBoard.setCastleStatus(moverColor, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.QUEEN_SIDE, false);
+            }
+        } else if (mPieceType == PieceType.PAWN) {
+            if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+                // The captured pawn is behind the destination, not on it
+                undo.capturedSquare = ChessBoard.squareIndex(ChessBoard.squareRow(from), ChessBoard.squareColumn(to));
+                undo.capturedPiece = gameBoard.clearSquare(undo.capturedSquare);
+            } else if (PackedMove.hasFlag(move, PackedMove.DOUBLE_PAWN)) {
+                // Double pawn moves leave an En passant option for the other team
+                int enPassantRow = (ChessBoard.squareRow(from) + ChessBoard.squareRow(to)) / 2;
+                gameBoard.setEnPassant(ChessPosition.of(enPassantRow, ChessBoard.squareColumn(to)), moverColor);
             }
         }
-        return false;
+        if (undo.capturedPiece != null && undo.capturedPiece.getPieceType() == PieceType.ROOK) {
+            removeCapturedRookCastle(undo.capturedPiece.getTeamColor(), to);
+        }
+        gameBoard.placePiece(to, placedPiece);
+        gameBoard.clearEnPassant(moverColor);
+        teamTurn = otherTeam(moverColor);
+        // Positions before a capture or pawn move can never come back
+        halfmoveClock = undo.capturedPiece != null || mPieceType == PieceType.PAWN ? 0 : halfmoveClock + 1;
     }
 
     /**
-     * Helper for determining if a diagonally attacking piece puts a king in check.
-     * Only for diagonal threats. Not rook or knights.
+     * Takes back the last move made by `makeMove()` or `makeMoveUnchecked()`, restoring the board,
+     * castle requirements, En passant options and turn exactly as they were.
      *
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @param row The row to currently check
-     * @param col The column to currently check
-     * @return True if there is a piece which puts the king in check, false is a piece is found, null otherwise
-     */
-    private Boolean helperCheckThreatDiagonal(ChessPosition kingPos, TeamColor teamColor, int row, int col) {
-        ChessPosition diaPosition = new ChessPosition(row, col);
-        ChessPiece potentialThreat = gameBoard.getPiece(diaPosition);
-        // Either return true or break
-        if (potentialThreat != null) {
-            if (potentialThreat.getTeamColor() != teamColor) {
-                PieceType threatPieceType = potentialThreat.getPieceType();
-                if (threatPieceType == PieceType.BISHOP || threatPieceType == PieceType.QUEEN) {
-                    return true;
-                }
-                return checkThreatByThreatMoves(potentialThreat, threatPieceType, true, kingPos, diaPosition);
-            }
-            return false;
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
         }
-        return null;
-    }
+        UndoRecord undo = undoStack[--undoCount];
 
-    /**
-     * Checks if a King or a Pawn puts a king in check by checking that piece's available moves
-     *
-     * @param threatPiece The King or Pawn that may put the king in check
-     * @param threatPieceType The type of the threatPiece
-     * @param diagonal False means only a king's moves will be checked
-     * @param kingPos The position of the king which may be in check
-     * @param threatPosition The position of the threatPiece
-     * @return True only if the threatPiece can attack the kingPos, else return false
-     */
-    private Boolean checkThreatByThreatMoves(ChessPiece threatPiece, PieceType threatPieceType, boolean diagonal,
-                                             ChessPosition kingPos, ChessPosition threatPosition) {
-        if ((diagonal && threatPieceType == PieceType.PAWN) || threatPieceType == PieceType.KING) {
-            // Check if the kingPos is a destination of one of threatPiece's pieceMoves
-            Collection<ChessMove> limitedMoves = threatPiece.pieceMoves(gameBoard, threatPosition);
-            for (ChessMove smallMove : limitedMoves) {
-                if (kingPos.equals(smallMove.getEndPosition())) {
-                    return true;
-                }
-            }
+        gameBoard.clearSquare(undo.to);
+        if (undo.rookFrom >= 0) {
+            gameBoard.placePiece(undo.rookFrom, gameBoard.clearSquare(undo.rookTo));
         }
-        return false;
+        if (undo.capturedPiece != null) {
+            gameBoard.placePiece(undo.capturedSquare, undo.capturedPiece);
+        }
+        gameBoard.placePiece(undo.from, undo.movedPiece);
+
+        gameBoard.setCastleRights(undo.castleRights);
+        // Reversed colors since enPassant is available for other team
+        gameBoard.setEnPassant(undo.enPassantWhite, TeamColor.BLACK);
+        gameBoard.setEnPassant(undo.enPassantBlack, TeamColor.WHITE);
+        gameBoard.setKingPos(undo.whiteKingPos, TeamColor.WHITE);
+        gameBoard.setKingPos(undo.blackKingPos, TeamColor.BLACK);
+        teamTurn = undo.teamTurn;
+        halfmoveClock = undo.halfmoveClock;
+        if (historyCount > 0) {
+            historyCount--;
+        }
+
+        // Drop references so the record does not keep pieces alive
+        undo.movedPiece = null;
+        undo.capturedPiece = null;
     }
 
     /**
-     * Determines if coordinates contain knight belonging to the other team
-     * 
-     * @param row The row of the piece to identify
-     * @param col The column of the piece to identify
-     * @param teamColor The friendly team, not the opponent
-     * @return True if coordinates contain a knight from the other team
+     * Removes the castling option of a rook that was captured on its starting square
+     *
+     * @param rookColor The team of the captured rook
+     * @param rookSquare The square index where the rook was captured
      */
-    private boolean threatIsKnight(int row, int col, TeamColor teamColor) {
-        ChessPiece potentialKnight = gameBoard.getPiece(new ChessPosition(row, col));
-        if (potentialKnight != null && potentialKnight.getTeamColor() != teamColor) {
-            return potentialKnight.getPieceType() == PieceType.KNIGHT;
+    private void removeCapturedRookCastle(TeamColor rookColor, int rookSquare) {
+        int homeRow = rookColor == TeamColor.WHITE ? ChessBoard.WHITE_ROW : ChessBoard.BLACK_ROW;
+        if (ChessBoard.squareRow(rookSquare) != homeRow) {
+            return;
+        }
+        int rookColumn = ChessBoard.squareColumn(rookSquare);
+        if (rookColumn == ChessBoard.ROOK_2_COL) {
+            gameBoard.setCastleStatus(rookColor, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.KING_SIDE, false);
+        } else if (rookColumn == ChessBoard.ROOK_1_COL) {
+            gameBoard.setCastleStatus(rookColor, ChessBoard.CastlePieceTypes.ROOK, ChessBoard.CastleType.QUEEN_SIDE, false);
         }
-        return false;
     }
 
     /**
-     * Determines if a knight has the given king in check
-     * 
-     * @param kingPos The position of the king to check
-     * @param teamColor The team of the given king
-     * @return True if the king is in check because a knight
+     * Moves the rook that belongs to a castling move, recording it for `unmakeMove()`
      */
-    private boolean checkThreatKnight(ChessPosition kingPos, TeamColor teamColor) {
-        int col = kingPos.getColumn();
-        int row = kingPos.getRow();
-        int size = ChessBoard.BOARD_SIZE;
-        if (col < size) {
-            if (row < size - 1 && threatIsKnight(row + 2, col + 1, teamColor)) {
-                return true;
-            }
-            if (row > 2 && threatIsKnight(row - 2, col + 1, teamColor)) {
-                return true;
-            }
+    private void makeCastleRookMove(UndoRecord undo, ChessBoard.CastleType castleType) {
+        int row = ChessBoard.squareRow(undo.from);
+        int rookFrom;
+        int rookTo;
+        if (castleType == ChessBoard.CastleType.KING_SIDE) {
+            rookFrom = ChessBoard.squareIndex(row, ChessBoard.ROOK_2_COL);
+            rookTo = undo.to - 1;
+        } else {
+            rookFrom = ChessBoard.squareIndex(row, ChessBoard.ROOK_1_COL);
+            rookTo = undo.to + 1;
         }
-        if (col < size - 1) {
-            if (row < size && threatIsKnight(row + 1, col + 2, teamColor)) {
-                return true;
-            }
-            if (row > 1 && threatIsKnight(row - 1, col + 2, teamColor)) {
-                return true;
-            }
+        ChessPiece rook = gameBoard.clearSquare(rookFrom);
+        if (rook != null) {
+            gameBoard.placePiece(rookTo, rook);
+            undo.rookFrom = rookFrom;
+            undo.rookTo = rookTo;
         }
-        if (col > 1) {
-            if (row < size - 1 && threatIsKnight(row + 2, col - 1, teamColor)) {
-                return true;
-            }
-            if (row > 2 && threatIsKnight(row - 2, col - 1, teamColor)) {
-                return true;
-            }
+    }
+
+    private UndoRecord pushUndo() {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
         }
-        if (col > 2) {
-            if (row < size && threatIsKnight(row + 1, col - 2, teamColor)) {
-                return true;
-            }
-            return row > 1 && threatIsKnight(row - 1, col - 2, teamColor);
+        UndoRecord undo = undoStack[undoCount];
+        if (undo == null) {
+            undo = new UndoRecord();
+            undoStack[undoCount] = undo;
         }
-        return false;
+        undoCount++;
+        return undo;
     }
-    
+
+    private void pushHistory(long key) {
+        if (historyCount == keyHistory.length) {
+            keyHistory = Arrays.copyOf(keyHistory, keyHistory.length * 2);
+            repetitionHistory = Arrays.copyOf(repetitionHistory, repetitionHistory.length * 2);
+        }
+        keyHistory[historyCount] = key;
+        repetitionHistory[historyCount] = -1;
+        historyCount++;
+    }
+
+    private static TeamColor otherTeam(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    /**
+     * Everything `unmakeMove()` needs to restore the position before a move
+     */
+    private static final class UndoRecord {
+        private int from;
+        private int to;
+        private ChessPiece movedPiece;
+        private ChessPiece capturedPiece;
+        private int capturedSquare;
+        private int rookFrom;
+        private int rookTo;
+        private int castleRights;
+        private ChessPosition enPassantWhite;
+        private ChessPosition enPassantBlack;
+        private ChessPosition whiteKingPos;
+        private ChessPosition blackKingPos;
+        private TeamColor teamTurn;
+        private int halfmoveClock;
+    }
+
     public boolean isInCheck(TeamColor teamColor) {
         ChessPosition kingPos = gameBoard.getKingPos(teamColor);
-        return checkThreatHorizontal(kingPos, teamColor) || checkThreatVertical(kingPos, teamColor)
-                            || checkThreatDiagonal(kingPos, teamColor) || checkThreatKnight(kingPos, teamColor);
+        return gameBoard.isSquareAttacked(ChessBoard.squareIndex(kingPos), otherTeam(teamColor));
     }
 
     private boolean isNoTurnPossible(TeamColor teamColor) {
-        Set<ChessPosition> positions = gameBoard.getAllPositions();
-        for (ChessPosition pos : positions) {
-            if (gameBoard.getPiece(pos).getTeamColor() == teamColor) {
-                Collection<ChessMove> allMoves = validMoves(pos);
-                if (allMoves != null && !allMoves.isEmpty()) {
-                    return false;
-                }
-            }
+        if (teamColor == teamTurn) {
+            refreshLegalMoves();
+            return legalMoveCount == 0;
         }
-        return true;
+        return !moveGenerator.hasLegalMove(gameBoard, teamColor, pieceMoveBuffer);
     }
     
     public boolean isInCheckmate(TeamColor teamColor) {
@@ -459,6 +462,155 @@ public class ChessGame {
             return !isInCheck(teamColor) && isNoTurnPossible(teamColor);
         }
 
+    /**
+     * @return Plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+        Arrays.fill(repetitionHistory, 0, historyCount, -1);
+    }
+
+    /**
+     * @return Keys (see `positionKey()`, without En passant options no legal capture can use) of the
+     * positions since the last capture or pawn move, oldest first, not including the current position
+     */
+    public long[] getPositionHistory() {
+        return Arrays.copyOfRange(keyHistory, Math.max(0, historyCount - halfmoveClock), historyCount);
+    }
+
+    /**
+     * Replaces the positions the game went through, as returned by `getPositionHistory()`
+     *
+     * @param keys Position keys, oldest first, not including the current position
+     */
+    public void setPositionHistory(long[] keys) {
+        int capacity = Math.max(INITIAL_UNDO_CAPACITY, keys.length);
+        keyHistory = Arrays.copyOf(keys, capacity);
+        repetitionHistory = new int[capacity];
+        Arrays.fill(repetitionHistory, -1);
+        historyCount = keys.length;
+    }
+
+    /**
+     * Only positions since the last capture or pawn move are looked at, with each earlier position's
+     * count remembered once found, so repeated checks cost about one comparison per ply played.
+     *
+     * @return How often the current position occurred before
+     */
+    public int getRepetitionCount() {
+        return repetitionCount(repetitionKey(), historyCount, Math.max(0, historyCount - halfmoveClock));
+    }
+
+    /**
+     * Positions are the same for repetition when they also have the same En passant captures. A double
+     * pawn move leaves an En passant option in `positionKey()` even when no pawn can take it, which would
+     * set the position after it apart from its later repeats, so such an option is left out here.
+     */
+    private long repetitionKey() {
+        long key = positionKey();
+        ChessPosition enPassantWhite = gameBoard.getEnPassant(TeamColor.WHITE);
+        ChessPosition enPassantBlack = gameBoard.getEnPassant(TeamColor.BLACK);
+        if (enPassantWhite == null && enPassantBlack == null) {
+            return key;
+        }
+        if (enPassantWhite != null && (teamTurn != TeamColor.WHITE || !hasEnPassantCapture(enPassantWhite))) {
+            key ^= Zobrist.EN_PASSANT_WHITE[enPassantWhite.getColumn() - 1];
+        }
+        if (enPassantBlack != null && (teamTurn != TeamColor.BLACK || !hasEnPassantCapture(enPassantBlack))) {
+            key ^= Zobrist.EN_PASSANT_BLACK[enPassantBlack.getColumn() - 1];
+        }
+        return key;
+    }
+
+    /**
+     * @param target The square the team to move could capture En passant on
+     * @return True if one of its pawns has a legal En passant capture there
+     */
+    private boolean hasEnPassantCapture(ChessPosition target) {
+        int row = target.getRow() + (teamTurn == TeamColor.WHITE ? -1 : 1);
+        if (row < 1 || row > ChessBoard.BOARD_SIZE) {
+            return false;
+        }
+        for (int col = target.getColumn() - 1; col <= target.getColumn() + 1; col += 2) {
+            if (col < 1 || col > ChessBoard.BOARD_SIZE) {
+                continue;
+            }
+            int square = ChessBoard.squareIndex(row, col);
+            ChessPiece piece = gameBoard.getPiece(square);
+            if (piece == null || piece.getTeamColor() != teamTurn
+                    || piece.getPieceType() != ChessPiece.PieceType.PAWN) {
+                continue;
+            }
+            int count = moveGenerator.generateLegalMoves(gameBoard, square, pieceMoveBuffer, 0);
+            for (int i = 0; i < count; i++) {
+                if (PackedMove.hasFlag(pieceMoveBuffer[i], PackedMove.EN_PASSANT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param end Positions from here on in `keyHistory` are not looked at
+     * @param start The first position after the last capture or pawn move
+     */
+    private int repetitionCount(long key, int end, int start) {
+        // The same side is to move every second ply
+        for (int i = end - 2; i >= start; i -= 2) {
+            if (keyHistory[i] == key) {
+                if (repetitionHistory[i] < 0) {
+                    repetitionHistory[i] = repetitionCount(key, i, start);
+                }
+                return repetitionHistory[i] + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return True if the current position occurred at least twice before
+     */
+    public boolean isThreefoldRepetition() {
+        return halfmoveClock >= 4 && getRepetitionCount() >= 2;
+    }
+
+    /**
+     * @return True if `FIFTY_MOVE_PLIES` plies passed without a capture or pawn move, and the last
+     * of them was not mate
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES && !isInCheckmate(teamTurn);
+    }
+
+    /**
+     * @return True if the game is drawn by threefold repetition or the fifty-move rule.
+     * Stalemate is reported by `isInStalemate()`.
+     */
+    public boolean isDraw() {
+        return isThreefoldRepetition() || isFiftyMoveDraw();
+    }
+
+    /**
+     * @return The position in Forsyth-Edwards Notation, with the halfmove clock
+     */
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    /**
+     * @param fen A position in Forsyth-Edwards Notation, the clocks may be left out
+     * @return The position as a game without history
+     * @throws IllegalArgumentException If the text is not a valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        return Fen.read(fen);
+    }
+
     public void setBoard(ChessBoard board) {
         gameBoard = board;
     }
@@ -467,6 +619,21 @@ public class ChessGame {
         return gameBoard;
     }
 
+    /**
+     * Gets the Zobrist key of the current position: the board's key with the team to move mixed in.
+     * Equal positions always share a key, so it can be used for transposition tables,
+     * repetition detection and caches.
+     *
+     * @return 64-bit hash of the position
+     */
+    public long positionKey() {
+        long key = gameBoard.positionKey();
+        if (teamTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
     public ChessGame copy() {
         ChessBoard gameBoard = this.gameBoard.copy();
         ChessGame.TeamColor teamTurn = this.teamTurn;
@@ -476,6 +643,10 @@ public class ChessGame {
         gameCopy.setBoard(gameBoard);
         gameCopy.setTeamTurn(teamTurn);
         gameCopy.setGameOver(gameOver);
+        gameCopy.keyHistory = Arrays.copyOf(keyHistory, keyHistory.length);
+        gameCopy.repetitionHistory = Arrays.copyOf(repetitionHistory, repetitionHistory.length);
+        gameCopy.historyCount = historyCount;
+        gameCopy.halfmoveClock = halfmoveClock;
         return gameCopy;
     }
 
@@ -490,6 +661,6 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(gameBoard, teamTurn, gameOver);
+        return 31 * Long.hashCode(positionKey()) + Boolean.hashCode(gameOver);
     }
 }
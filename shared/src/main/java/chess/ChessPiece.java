@@ -13,15 +13,43 @@ import java.util.HashSet;
 public class ChessPiece {
     public static final int WHITE_DIRECTION = 1;
     public static final int BLACK_DIRECTION = -1;
+    // The most moves a single piece can have: a queen in the middle of an open board
+    public static final int MAX_PIECE_MOVES = 28;
+
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.QUEEN, PieceType.BISHOP, PieceType.ROOK, PieceType.KNIGHT};
+
+    // One shared piece per team and type, indexed like the bitboards in `ChessBoard`
+    private static final ChessPiece[] PIECES = new ChessPiece[ChessGame.TeamColor.values().length * PieceType.values().length];
+
+    static {
+        for (ChessGame.TeamColor teamColor : ChessGame.TeamColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                PIECES[teamColor.ordinal() * PieceType.values().length + pieceType.ordinal()] =
+                        new ChessPiece(teamColor, pieceType);
+            }
+        }
+    }
 
     private final ChessGame.TeamColor pieceColor;
-    private PieceType type;
+    private final PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a piece instead of allocating a new one. Pieces are immutable,
+     * a promotion replaces the pawn with the promoted piece.
+     *
+     * @param pieceColor The team of the piece
+     * @param type The type of the piece
+     * @return The shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * PieceType.values().length + type.ordinal()];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -71,228 +99,86 @@ public class ChessPiece {
     }
 
     /**
-     * Changes the pieces type. Useful for promotions
-     *
-     * @param pieceType The new type of piece to set
-     */
-    public void setPieceType(PieceType pieceType) {
-        this.type = pieceType;
-    }
-
-    /**
-     * Helper for adding moves in horizontal, straight, or diagonal lines.
-     * Adds the move to parameter `moves` if destination is not a friendly position.
-     * Returns true if the destination is blocking source piece from moving past it.
-     * Also returns true for blocking if the move type is not extended.
-     * Assumes `potentialColumn` and `potentialRow` are within bounds and legal.
-     *
-     * @param board           The main board to check other pieces.
-     * @param myPosition      Required to make ChessMove objects.
-     * @param extended        Defaults blocking when `false`
-     * @param moves           The reference to add moves to.
-     * @param potentialRow    The potential destination row.
-     * @param potentialColumn The potential destination column.
-     * @return Returns `true` if blocking.
-     */
-    private boolean addMoveAndCheckBlock(ChessBoard board, ChessPosition myPosition, boolean extended,
-                                         HashSet<ChessMove> moves, int potentialRow, int potentialColumn) {
-        ChessPosition potentialPosition = new ChessPosition(potentialRow, potentialColumn);
-        ChessPiece threatenedPiece = board.getPiece(potentialPosition);
-        if (threatenedPiece == null) {
-            // Empty destinations are valid.
-            ChessMove newMove = new ChessMove(myPosition, potentialPosition, null);
-            moves.add(newMove);
-            return !extended; // If extended then the move won't default to blocking.
-        }
-        if (threatenedPiece.getTeamColor() != pieceColor) {
-            // If opponent's piece, then it's a valid destination.
-            ChessMove newMove = new ChessMove(myPosition, potentialPosition, null);
-            moves.add(newMove);
-        }
-        // Opponent's piece or Friendly piece is always blocking
-        return true;
-    }
-
-    /**
-     * Calculates horizontal moves for a piece, adjacent or extended. Using position of piece as reference.
-     * Does not account for moves that place king in check.
-     *
-     * @param board To see other positions on the board.
-     * @param myPosition Reference for finding moves.
-     * @param extended Determines if the whole row is checked, or, if false, only adjacent locations.
-     * @return HashSet of horizontal moves that are not blocked
-     */
-    private HashSet<ChessMove> pieceFindHorizontalMoves(ChessBoard board, ChessPosition myPosition, boolean extended) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int myRow = myPosition.getRow();
-        for (int i = -1; i <= 1; i += 2) {
-            // Runs left, then right, using negative and positive increment.
-            for (int c = myPosition.getColumn() + i; c > 0 && c <= ChessBoard.BOARD_SIZE; c += i) {
-                if (addMoveAndCheckBlock(board, myPosition, extended, moves, myRow, c)) {
-                    break;
-                }
-            }
-        }
-        return moves;
-    }
-
-    /**
-     * Calculates vertical moves for a piece, adjacent or extended. Using position of piece as reference.
-     * Does not account for moves that place king in check.
-     *
-     * @param board To see other positions on the board.
-     * @param myPosition Reference for finding moves.
-     * @param extended Determines if the whole column is checked, or, if false, only adjacent locations.
-     * @return HashSet of vertical moves that are not blocked.
-     */
-    private HashSet<ChessMove> pieceFindVerticalMoves(ChessBoard board, ChessPosition myPosition, boolean extended) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int myColumn = myPosition.getColumn();
-        for (int i = -1; i <= 1; i += 2) {
-            // Runs down, then up, using negative and positive increment.
-            for (int r = myPosition.getRow() + i; r > 0 && r <= ChessBoard.BOARD_SIZE; r += i) {
-                if (addMoveAndCheckBlock(board, myPosition, extended, moves, r, myColumn)) {
-                    break;
-                }
-            }
-        }
-        return moves;
-    }
-
-    /**
-     * Calculates diagonal moves for a piece, adjacent or extended. Using position of piece as reference.
+     * Adds a move to every attacked square that is empty or holds an opponent's piece.
      * Does not account for moves that place king in check.
      *
      * @param board To see other positions on the board.
-     * @param myPosition Reference for finding moves.
-     * @param extended Determines if extended diagonals are checked, or, if false, only adjacent diagonals.
-     * @return HashSet of diagonal moves that are not blocked.
+     * @param from Reference square index for finding moves.
+     * @param attacks Bitboard of the squares this piece attacks, see `Attacks`.
+     * @param moves The buffer to add packed moves to.
+     * @param count How many moves are already in `moves`.
+     * @return The new move count.
      */
-    private HashSet<ChessMove> pieceFindDiagonalMoves(ChessBoard board, ChessPosition myPosition, boolean extended) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        for (int ci = -1; ci <= 1; ci += 2) {           // Goes left and then right
-            for (int ri = -1; ri <= 1; ri += 2) {       // Goes down and then up
-                // Initialize with -1 or +1 offsets on both new_c and new_r
-                // Check bounds
-                // Increment with -1 or +1 on both new_c and new_r
-                for (int newC = myPosition.getColumn() + ci, newR = myPosition.getRow() + ri;
-                    newR > 0 && newC > 0 && newR <= ChessBoard.BOARD_SIZE && newC <= ChessBoard.BOARD_SIZE;
-                    newC += ci, newR += ri) {
-                    if (addMoveAndCheckBlock(board, myPosition, extended, moves, newR, newC)) {
-                        break;
-                    }
-                }
-            }
-        }
-        return moves;
-    }
-
-    /**
-     * Calculates moves as if the piece is a knight. Invalidating blocked moves.
-     * Does not account for moves that place king in check.
-     *
-     * @param board To see other positions on the board.
-     * @param myPosition Reference for finding moves.
-     * @return HashSet of knight type moves.
-     */
-    private HashSet<ChessMove> pieceFindKnightMoves(ChessBoard board, ChessPosition myPosition) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int column = myPosition.getColumn();
-        int row = myPosition.getRow();
-        if (column < ChessBoard.BOARD_SIZE) {
-            if (row < ChessBoard.BOARD_SIZE - 1) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row + 2, column + 1);
-            }
-            if (row > 2) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row - 2, column + 1);
-            }
-        }
-        if (column < ChessBoard.BOARD_SIZE - 1) {
-            if (row < ChessBoard.BOARD_SIZE) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row + 1, column + 2);
-            }
-            if (row > 1) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row - 1, column + 2);
-            }
-        }
-        if (column > 1) {
-            if (row < ChessBoard.BOARD_SIZE - 1) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row + 2, column - 1);
-            }
-            if (row > 2) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row - 2, column - 1);
-            }
-        }
-        if (column > 2) {
-            if (row < ChessBoard.BOARD_SIZE) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row + 1, column - 2);
-            }
-            if (row > 1) {
-                addMoveAndCheckBlock(board, myPosition, false, moves, row - 1, column - 2);
-            }
+    private int pieceAddAttackMoves(ChessBoard board, int from, long attacks, int[] moves, int count) {
+        // Friendly pieces are always blocking
+        long targets = attacks & ~board.getTeamOccupancy(pieceColor);
+        long opponents = board.getOccupancy() & ~board.getTeamOccupancy(pieceColor);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (opponents & (1L << to)) != 0 ? PackedMove.CAPTURE : 0;
+            moves[count++] = PackedMove.of(from, to, null, flags);
         }
-        return moves;
+        return count;
     }
 
     /**
      * Determines if a pawn move is valid.
      *
-     * @param potentialPosition The position in range of the pawn that it may be able to move to
+     * @param to The square in range of the pawn that it may be able to move to
      * @param isAttack Determines if an attack (diagonal) move or a straight move.
-     * @return True if the move is legal.
+     * @return The flags for the move if it is legal, or -1 if it is not.
      */
-    private boolean isPawnMoveLegal(ChessBoard board, ChessPosition potentialPosition, boolean isAttack) {
-        ChessPiece threatenedPiece = board.getPiece(potentialPosition);
+    private int pawnMoveFlags(ChessBoard board, int to, boolean isAttack) {
+        ChessPiece threatenedPiece = board.getPiece(to);
         // Check if attack is legal.
         if (isAttack) {
             if (threatenedPiece != null) {
-                return threatenedPiece.getTeamColor() != pieceColor;
-            } else {
-                return potentialPosition.equals(board.getEnPassant(pieceColor));
+                return threatenedPiece.getTeamColor() != pieceColor ? PackedMove.CAPTURE : -1;
             }
+            ChessPosition enPassant = board.getEnPassant(pieceColor);
+            if (enPassant != null && ChessBoard.squareIndex(enPassant) == to) {
+                return PackedMove.EN_PASSANT | PackedMove.CAPTURE;
+            }
+            return -1;
         }
         // If not attack, check if not blocked.
-        return threatenedPiece == null;
+        return threatenedPiece == null ? 0 : -1;
     }
 
     /**
      * Assumes that destinationRow and destinationColumn are within pawn movement range.
-     * Adds a pawn move if legal. Returns true if it did.
+     * Adds a pawn move if legal, all four promotions if it reaches the last row.
      *
      * @param board To see other position on the board.
-     * @param moves The HashSet of moves to add the move to.
-     * @param myPosition The position of the source piece.
+     * @param from The square index of the source piece.
      * @param destinationRow The potential destination row.
      * @param destinationColumn The potential destination column.
      * @param isAttack Determines if and only if an opponent should be present to be valid.
-     * @return True if move was added.
+     * @param moves The buffer to add packed moves to.
+     * @param count How many moves are already in `moves`.
+     * @return The new move count, unchanged if no move was added.
      */
-    private boolean pieceAddPawnMove(ChessBoard board, HashSet<ChessMove> moves, ChessPosition myPosition,
-                                     int destinationRow, int destinationColumn, boolean isAttack) {
-        ChessPosition potentialPosition = new ChessPosition(destinationRow, destinationColumn);
-        if (isPawnMoveLegal(board, potentialPosition, isAttack)) {
-            ChessMove newMove;
-            if (destinationRow == ChessBoard.BLACK_ROW || destinationRow == ChessBoard.WHITE_ROW) {
-                // Promote
-                newMove = new ChessMove(myPosition, potentialPosition, PieceType.QUEEN);
-                moves.add(newMove);
-                newMove = new ChessMove(myPosition, potentialPosition, PieceType.BISHOP);
-                moves.add(newMove);
-                newMove = new ChessMove(myPosition, potentialPosition, PieceType.ROOK);
-                moves.add(newMove);
-                newMove = new ChessMove(myPosition, potentialPosition, PieceType.KNIGHT);
-            } else {
-                newMove = new ChessMove(myPosition, potentialPosition, null);
-                int diff = myPosition.getRow() - destinationRow;
-                int mask = diff >> (Integer.SIZE - 1);
-                if (((diff + mask) ^ mask) > 1){
-                    newMove.setDoublePawnMove();
-                }
+    private int pieceAddPawnMove(ChessBoard board, int from, int destinationRow, int destinationColumn,
+                                 boolean isAttack, int[] moves, int count) {
+        int to = ChessBoard.squareIndex(destinationRow, destinationColumn);
+        int flags = pawnMoveFlags(board, to, isAttack);
+        if (flags < 0) {
+            return count;
+        }
+        if (destinationRow == ChessBoard.BLACK_ROW || destinationRow == ChessBoard.WHITE_ROW) {
+            // Promote
+            for (PieceType promotion : PROMOTION_TYPES) {
+                moves[count++] = PackedMove.of(from, to, promotion, flags);
             }
-            moves.add(newMove);
-            return true;
+            return count;
         }
-        return false;
+        int diff = ChessBoard.squareRow(from) - destinationRow;
+        if (diff > 1 || diff < -1) {
+            flags |= PackedMove.DOUBLE_PAWN;
+        }
+        moves[count++] = PackedMove.of(from, to, null, flags);
+        return count;
     }
 
     /**
@@ -300,13 +186,14 @@ public class ChessPiece {
      * Does not account for moves that place king in check.
      *
      * @param board To see other positions on the board.
-     * @param myPosition Reference for finding moves.
-     * @return HashSet of pawn type moves.
+     * @param from Reference square index for finding moves.
+     * @param moves The buffer to add packed moves to.
+     * @param count How many moves are already in `moves`.
+     * @return The new move count.
      */
-    private HashSet<ChessMove> pieceFindPawnMoves(ChessBoard board, ChessPosition myPosition) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int row = myPosition.getRow();
-        int column = myPosition.getColumn();
+    private int pieceFindPawnMoves(ChessBoard board, int from, int[] moves, int count) {
+        int row = ChessBoard.squareRow(from);
+        int column = ChessBoard.squareColumn(from);
         int direction;
         int startingRow;
         int boundaryRow;
@@ -321,35 +208,37 @@ public class ChessPiece {
         }
 
         if ((direction == BLACK_DIRECTION && row > boundaryRow) || (direction == WHITE_DIRECTION && row < boundaryRow)) {
-            if (pieceAddPawnMove(board, moves, myPosition, row + direction, column, false)) {
-                if (row == startingRow) {
-                    pieceAddPawnMove(board, moves, myPosition, row + 2 * direction, column, false);
-                }
+            int singleCount = pieceAddPawnMove(board, from, row + direction, column, false, moves, count);
+            if (singleCount != count && row == startingRow) {
+                singleCount = pieceAddPawnMove(board, from, row + 2 * direction, column, false, moves, singleCount);
             }
+            count = singleCount;
             if (column > 1) {
-                pieceAddPawnMove(board, moves, myPosition, row + direction, column - 1, true);
+                count = pieceAddPawnMove(board, from, row + direction, column - 1, true, moves, count);
             }
             if (column < ChessBoard.BOARD_SIZE) {
-                pieceAddPawnMove(board, moves, myPosition, row + direction, column + 1, true);
+                count = pieceAddPawnMove(board, from, row + direction, column + 1, true, moves, count);
             }
         }
-        return moves;
+        return count;
     }
 
     /**
-     * Assumes that the piece at myPosition is a king. Does not check for check.
+     * Assumes that the piece at `from` is a king. Does not check for check.
      *
      * @param board To see other positions on the board
-     * @param myPosition Reference for finding moves
-     * @return The castling moves if there are space
+     * @param from Reference square index for finding moves
+     * @param moves The buffer to add packed moves to.
+     * @param count How many moves are already in `moves`.
+     * @return The new move count, including castling moves if there are space
      */
-    private HashSet<ChessMove> pieceAddCastling(ChessBoard board, ChessPosition myPosition) {
-        HashSet<ChessMove> moves = new HashSet<>();
-        int row = myPosition.getRow();
+    private int pieceAddCastling(ChessBoard board, int from, int[] moves, int count) {
+        int row = ChessBoard.squareRow(from);
         if ((pieceColor == ChessGame.TeamColor.WHITE && row != ChessBoard.WHITE_ROW) ||
                 (pieceColor == ChessGame.TeamColor.BLACK && row != ChessBoard.BLACK_ROW)) {
-            return moves;
+            return count;
         }
+        int myColumn = ChessBoard.squareColumn(from);
         // Add castling only if there is empty spaces until the rook
         ChessBoard.CastleType castleType = ChessBoard.CastleType.QUEEN_SIDE;
         boolean blocked = true;
@@ -357,19 +246,55 @@ public class ChessPiece {
             if (!board.getCastleStatus(pieceColor, castleType)) {
                 continue;   // Skip if the castling move is not available
             }
-            for (int col = myPosition.getColumn() + h; col > 1 && col <= ChessBoard.BOARD_SIZE - 1; col += h) {
+            for (int col = myColumn + h; col > 1 && col <= ChessBoard.BOARD_SIZE - 1; col += h) {
                 blocked = false;
-                if (board.getPiece(new ChessPosition(row, col)) != null) {
+                if (board.getPiece(row, col) != null) {
                     blocked = true;
                     break;  // No need to continue
                 }
             }
             if (!blocked) {
-                ChessPosition destination = new ChessPosition(row, myPosition.getColumn() + 2*h);
-                moves.add(new ChessMove(myPosition, destination, null));
+                moves[count++] = PackedMove.of(from, ChessBoard.squareIndex(row, myColumn + 2 * h), null,
+                        PackedMove.CASTLE);
             }
         }
-        return moves;
+        return count;
+    }
+
+    /**
+     * Writes every move this piece could make into a move buffer as packed moves, see `PackedMove`.
+     * Does not take into account moves that are illegal due to leaving the king in danger.
+     *
+     * @param board The board the piece is on
+     * @param from The square index of this piece
+     * @param moves The buffer to write to, needs room for at least 28 more moves
+     * @param count How many moves are already in `moves`
+     * @return The new move count
+     */
+    public int generateMoves(ChessBoard board, int from, int[] moves, int count) {
+        return generateMoves(board, from, -1L, moves, count);
+    }
+
+    /**
+     * Like `generateMoves(ChessBoard, int, int[], int)`, but pieces other than pawns only move to
+     * the given squares. Pawn moves are always all written, their captures and promotions do not
+     * follow the squares as neatly.
+     *
+     * @param targets Bitboard of the squares to move to, castling needs its empty destination in it
+     */
+    public int generateMoves(ChessBoard board, int from, long targets, int[] moves, int count) {
+        long occupancy = board.getOccupancy();
+        return switch (type) {
+            case KING -> {
+                count = pieceAddAttackMoves(board, from, Attacks.king(from) & targets, moves, count);
+                yield (targets & ~occupancy) != 0 ? pieceAddCastling(board, from, moves, count) : count;
+            }
+            case QUEEN -> pieceAddAttackMoves(board, from, Attacks.queen(from, occupancy) & targets, moves, count);
+            case BISHOP -> pieceAddAttackMoves(board, from, Attacks.bishop(from, occupancy) & targets, moves, count);
+            case KNIGHT -> pieceAddAttackMoves(board, from, Attacks.knight(from) & targets, moves, count);
+            case ROOK -> pieceAddAttackMoves(board, from, Attacks.rook(from, occupancy) & targets, moves, count);
+            case PAWN -> pieceFindPawnMoves(board, from, moves, count);
+        };
     }
 
     /**
@@ -380,34 +305,11 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        int[] packedMoves = new int[MAX_PIECE_MOVES];
+        int count = generateMoves(board, ChessBoard.squareIndex(myPosition), packedMoves, 0);
         HashSet<ChessMove> moves = new HashSet<>();
-        switch (type) {
-            case KING:
-                moves.addAll(pieceFindHorizontalMoves(board, myPosition, false));
-                moves.addAll(pieceFindVerticalMoves(board, myPosition, false));
-                moves.addAll(pieceFindDiagonalMoves(board, myPosition, false));
-                moves.addAll(pieceAddCastling(board, myPosition));
-                break;
-            case QUEEN:
-                moves.addAll(pieceFindHorizontalMoves(board, myPosition, true));
-                moves.addAll(pieceFindVerticalMoves(board, myPosition, true));
-                moves.addAll(pieceFindDiagonalMoves(board, myPosition, true));
-                break;
-            case BISHOP:
-                moves.addAll(pieceFindDiagonalMoves(board, myPosition, true));
-                break;
-            case KNIGHT:
-                moves.addAll(pieceFindKnightMoves(board, myPosition));
-                break;
-            case ROOK:
-                moves.addAll(pieceFindHorizontalMoves(board, myPosition, true));
-                moves.addAll(pieceFindVerticalMoves(board, myPosition, true));
-                break;
-            case PAWN:
-                moves.addAll(pieceFindPawnMoves(board, myPosition));
-                break;
-            default:
-                throw new RuntimeException("Invalid piece type: " + type);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toChessMove(packedMoves[i]));
         }
         return moves;
     }
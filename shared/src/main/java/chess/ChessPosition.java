@@ -9,6 +9,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    // Every on-board position, indexed by `ChessBoard.squareIndex()`. Positions are immutable, so these are shared.
+    private static final ChessPosition[] POSITIONS = new ChessPosition[ChessBoard.SQUARE_COUNT];
+
+    static {
+        for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+            POSITIONS[square] = new ChessPosition(ChessBoard.squareRow(square), ChessBoard.squareColumn(square));
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -20,6 +29,32 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a position instead of allocating a new one
+     *
+     * @param row The row, 1 codes for the bottom row
+     * @param col The column, 1 codes for the left column
+     * @return The position, shared when it is on the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (col < 1 || col > ChessBoard.BOARD_SIZE) {
+            // Off-board columns are not cached, the constructor decides what to do with them
+            return new ChessPosition(row, col);
+        }
+        if (row < 1 || row > ChessBoard.BOARD_SIZE) {
+            throw new IndexOutOfBoundsException("row: " + row + ", col: " + col);
+        }
+        return POSITIONS[ChessBoard.squareIndex(row, col)];
+    }
+
+    /**
+     * @param square A square index, see `ChessBoard.squareIndex()`
+     * @return The shared position of that square
+     */
+    public static ChessPosition ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
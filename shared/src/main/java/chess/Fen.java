@@ -0,0 +1,247 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, see `ChessGame.toFen()` and `ChessGame.fromFen()`.
+ * <p>
+ * Castle requirements are kept per piece (see `ChessBoard.castleBit()`), so a king that never moved
+ * next to a rook that did has a requirement met that the castling field cannot show. When the field
+ * does not cover every requirement, a seventh field holds all of them as `ChessBoard.getCastleRights()`
+ * in hex. Reading without it takes each castling letter as both of its requirements.
+ * The fullmove number is not tracked, it is written as 1 and skipped when read.
+ */
+final class Fen {
+    // By `PieceType` ordinal, black's letters
+    private static final String PIECE_LETTERS = "kqbnrp";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    private static final TeamColor[] TEAMS = TeamColor.values();
+    private static final ChessBoard.CastleType[] CASTLE_TYPES = {
+            ChessBoard.CastleType.KING_SIDE, ChessBoard.CastleType.QUEEN_SIDE};
+    // By team, then by `CASTLE_TYPES`
+    private static final char[][] CASTLE_LETTERS = {{'K', 'Q'}, {'k', 'q'}};
+
+    private final String text;
+    private int index;
+
+    private Fen(String text) {
+        this.text = text;
+    }
+
+    static ChessGame read(String fen) {
+        return new Fen(fen).parse();
+    }
+
+    static String write(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder builder = new StringBuilder(96);
+        for (int row = ChessBoard.BOARD_SIZE; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= ChessBoard.BOARD_SIZE; col++) {
+                ChessPiece piece = board.getPiece(ChessBoard.squareIndex(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    builder.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+                builder.append(piece.getTeamColor() == TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                builder.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                builder.append('/');
+            }
+        }
+
+        builder.append(game.getTeamTurn() == TeamColor.WHITE ? " w " : " b ");
+        int shownRights = 0;
+        for (TeamColor team : TEAMS) {
+            for (int castle = 0; castle < CASTLE_TYPES.length; castle++) {
+                if (board.getCastleStatus(team, CASTLE_TYPES[castle])) {
+                    builder.append(CASTLE_LETTERS[team.ordinal()][castle]);
+                    shownRights |= castleBits(team, CASTLE_TYPES[castle]);
+                }
+            }
+        }
+        if (shownRights == 0) {
+            builder.append('-');
+        }
+
+        ChessPosition enPassant = board.getEnPassant(game.getTeamTurn());
+        builder.append(' ');
+        if (enPassant == null) {
+            builder.append('-');
+        } else {
+            builder.append((char) ('a' + enPassant.getColumn() - 1)).append(enPassant.getRow());
+        }
+        builder.append(' ').append(game.getHalfmoveClock()).append(" 1");
+        if (board.getCastleRights() != shownRights) {
+            builder.append(' ').append(Integer.toHexString(board.getCastleRights()));
+        }
+        return builder.toString();
+    }
+
+    private ChessGame parse() {
+        ChessBoard board = new ChessBoard();
+        skipSpaces();
+        int row = ChessBoard.BOARD_SIZE;
+        int col = 1;
+        for (; index < text.length() && text.charAt(index) != ' '; index++) {
+            char c = text.charAt(index);
+            if (c == '/') {
+                if (col != ChessBoard.BOARD_SIZE + 1 || row == 1) {
+                    throw error("Rank " + row + " does not have 8 squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0) {
+                    throw error("Invalid piece " + c);
+                }
+                if (col > ChessBoard.BOARD_SIZE) {
+                    throw error("Rank " + row + " has more than 8 squares");
+                }
+                TeamColor team = Character.isUpperCase(c) ? TeamColor.WHITE : TeamColor.BLACK;
+                board.addPieceMidGame(ChessPosition.of(row, col), ChessPiece.of(team, PIECE_TYPES[type]));
+                col++;
+            }
+            if (col > ChessBoard.BOARD_SIZE + 1) {
+                throw error("Rank " + row + " has more than 8 squares");
+            }
+        }
+        if (row != 1 || col != ChessBoard.BOARD_SIZE + 1) {
+            throw error("Board does not have 8 full ranks");
+        }
+
+        skipSpaces();
+        TeamColor turn;
+        char side = next();
+        if (side == 'w') {
+            turn = TeamColor.WHITE;
+        } else if (side == 'b') {
+            turn = TeamColor.BLACK;
+        } else {
+            throw error("Side to move must be w or b");
+        }
+
+        skipSpaces();
+        int castleRights = 0;
+        if (peek() == '-') {
+            index++;
+        } else {
+            while (index < text.length() && text.charAt(index) != ' ') {
+                castleRights |= castleLetterBits(next());
+            }
+        }
+
+        skipSpaces();
+        ChessPosition enPassant = null;
+        if (peek() == '-') {
+            index++;
+        } else {
+            int enPassantCol = next() - 'a' + 1;
+            int enPassantRow = next() - '0';
+            if (enPassantCol < 1 || enPassantCol > ChessBoard.BOARD_SIZE
+                    || enPassantRow < 1 || enPassantRow > ChessBoard.BOARD_SIZE) {
+                throw error("Invalid En passant square");
+            }
+            enPassant = ChessPosition.of(enPassantRow, enPassantCol);
+        }
+
+        // Clocks are optional, many positions are given without them
+        skipSpaces();
+        int halfmoveClock = index < text.length() ? readNumber(10) : 0;
+        skipSpaces();
+        if (index < text.length()) {
+            readNumber(10);
+        }
+        skipSpaces();
+        if (index < text.length()) {
+            castleRights = readNumber(16);
+            // One bit per team, piece and side
+            if (castleRights > 0xFF) {
+                throw error("Invalid castle rights");
+            }
+        }
+        skipSpaces();
+        if (index < text.length()) {
+            throw error("Unexpected text");
+        }
+
+        board.setCastleRights(castleRights);
+        if (enPassant != null) {
+            // The team that is not moving provided the En passant option
+            board.setEnPassant(enPassant, turn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        game.setHalfmoveClock(halfmoveClock);
+        return game;
+    }
+
+    private int castleLetterBits(char letter) {
+        for (TeamColor team : TEAMS) {
+            for (int castle = 0; castle < CASTLE_TYPES.length; castle++) {
+                if (CASTLE_LETTERS[team.ordinal()][castle] == letter) {
+                    return castleBits(team, CASTLE_TYPES[castle]);
+                }
+            }
+        }
+        throw error("Invalid castling letter " + letter);
+    }
+
+    private static int castleBits(TeamColor team, ChessBoard.CastleType castleType) {
+        return ChessBoard.castleBit(team, ChessBoard.CastlePieceTypes.KING, castleType)
+                | ChessBoard.castleBit(team, ChessBoard.CastlePieceTypes.ROOK, castleType);
+    }
+
+    private int readNumber(int radix) {
+        int start = index;
+        int value = 0;
+        while (index < text.length() && text.charAt(index) != ' ') {
+            int digit = Character.digit(text.charAt(index), radix);
+            if (digit < 0 || value > (Integer.MAX_VALUE - digit) / radix) {
+                throw error("Invalid number");
+            }
+            value = value * radix + digit;
+            index++;
+        }
+        if (index == start) {
+            throw error("Missing number");
+        }
+        return value;
+    }
+
+    private void skipSpaces() {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+    }
+
+    private char peek() {
+        if (index >= text.length()) {
+            throw error("Missing field");
+        }
+        return text.charAt(index);
+    }
+
+    private char next() {
+        char c = peek();
+        index++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + index + " in FEN: " + text);
+    }
+}
@@ -0,0 +1,224 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Generates strictly legal moves without playing them on the board.
+ * <p>
+ * Before generating, the pieces giving check and the pieces pinned to their king are found once.
+ * Each pseudo-legal move from `ChessPiece.generateMoves()` is then kept or dropped with a few
+ * bitboard tests: non-king moves must land on the check mask and stay on their pin line, king
+ * moves must land on an unattacked square, and castling may not start in, pass through or end in
+ * check. En passant is the one move that can expose the king along a row by removing two pieces
+ * at once, so it is tested against the occupancy it would leave.
+ * <p>
+ * Holds scratch state between `prepare()` and the filter, so one instance must not be shared between threads.
+ */
+final class MoveGenerator {
+    /** Generate every legal move */
+    static final int ALL = 0;
+    /** Generate only captures and promotions, see `PackedMove.isTactical()` */
+    static final int TACTICAL = 1;
+    /** Generate only the moves `TACTICAL` leaves out */
+    static final int QUIET = 2;
+
+    private static final long ALL_SQUARES = -1L;
+
+    private ChessBoard board;
+    private TeamColor opponent;
+    private int kind;
+    // Squares pieces other than pawns may move to for `kind`
+    private long kindTargets;
+    // -1 when the team has no king on the board, then every pseudo-legal move is kept
+    private int kingSquare;
+    private long checkers;
+    // Where a non-king move must land to resolve the check, every square when not in check
+    private long checkMask;
+    private long pinned;
+    // For each pinned square, the line between the king and the pinning piece, including that piece
+    private final long[] pinLines = new long[ChessBoard.SQUARE_COUNT];
+
+    /**
+     * Writes every legal move of a team into a buffer, as packed moves (see `PackedMove`)
+     *
+     * @param board The board to generate for
+     * @param team The team making the moves
+     * @param moves The buffer to write to, needs room for `ChessGame.MAX_MOVES` moves from `start`
+     * @param start The index to write the first move at
+     * @return The index after the last move written
+     */
+    int generateLegalMoves(ChessBoard board, TeamColor team, int[] moves, int start) {
+        return generateLegalMoves(board, team, moves, start, ALL);
+    }
+
+    /**
+     * Writes the legal moves of one kind into a buffer, so a search can look at captures before
+     * paying for the quiet moves it may never need
+     *
+     * @param kind `ALL`, `TACTICAL` or `QUIET`
+     * @see #generateLegalMoves(ChessBoard, TeamColor, int[], int)
+     */
+    int generateLegalMoves(ChessBoard board, TeamColor team, int[] moves, int start, int kind) {
+        prepare(board, team);
+        setKind(kind);
+        int end = start;
+        long pieces = board.getTeamOccupancy(team);
+        if (Long.bitCount(checkers) > 1 && kingSquare >= 0) {
+            // Only the king can escape a double check
+            pieces = 1L << kingSquare;
+        }
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            end = generatePieceMoves(square, moves, end);
+        }
+        return end;
+    }
+
+    /**
+     * Writes every legal move of the piece on a square into a buffer, as packed moves (see `PackedMove`)
+     *
+     * @param board The board to generate for
+     * @param square The square index of the piece, which must not be empty
+     * @param moves The buffer to write to, needs room for `ChessPiece.MAX_PIECE_MOVES` moves from `start`
+     * @param start The index to write the first move at
+     * @return The index after the last move written
+     */
+    int generateLegalMoves(ChessBoard board, int square, int[] moves, int start) {
+        prepare(board, board.getPiece(square).getTeamColor());
+        setKind(ALL);
+        return generatePieceMoves(square, moves, start);
+    }
+
+    /**
+     * Determines if a team has at least one legal move, stopping at the first one found
+     *
+     * @param board The board to check
+     * @param team The team that would move
+     * @param scratch A buffer with room for `ChessPiece.MAX_PIECE_MOVES` moves
+     * @return True if the team can move
+     */
+    boolean hasLegalMove(ChessBoard board, TeamColor team, int[] scratch) {
+        prepare(board, team);
+        setKind(ALL);
+        long pieces = board.getTeamOccupancy(team);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            if (generatePieceMoves(square, scratch, 0) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void prepare(ChessBoard board, TeamColor team) {
+        this.board = board;
+        this.opponent = team == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        ChessPosition kingPos = board.getKingPos(team);
+        if (kingPos == null || board.getPiece(kingPos) == null) {
+            kingSquare = -1;
+            checkers = 0L;
+            checkMask = ALL_SQUARES;
+            pinned = 0L;
+            return;
+        }
+        kingSquare = ChessBoard.squareIndex(kingPos);
+        long occupancy = board.getOccupancy();
+        checkers = board.attackersOf(kingSquare, opponent, occupancy);
+        if (checkers == 0) {
+            checkMask = ALL_SQUARES;
+        } else {
+            // With a single checker: capture it or block its line (empty for knights and pawns)
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Attacks.between(kingSquare, checker);
+        }
+
+        // Sliders that would attack the king if only their own team were on the board
+        long queens = board.getPieceBitboard(opponent, ChessPiece.PieceType.QUEEN);
+        long opponentPieces = board.getTeamOccupancy(opponent);
+        long snipers = (Attacks.rook(kingSquare, opponentPieces)
+                & (board.getPieceBitboard(opponent, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(kingSquare, opponentPieces)
+                & (board.getPieceBitboard(opponent, ChessPiece.PieceType.BISHOP) | queens));
+        long friendly = board.getTeamOccupancy(team);
+        pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long line = Attacks.between(kingSquare, sniper);
+            long blockers = line & occupancy;
+            if (Long.bitCount(blockers) == 1 && (blockers & friendly) != 0) {
+                int pinnedSquare = Long.numberOfTrailingZeros(blockers);
+                pinned |= blockers;
+                pinLines[pinnedSquare] = line | (1L << sniper);
+            }
+        }
+    }
+
+    private int generatePieceMoves(int from, int[] moves, int start) {
+        int end = board.getPiece(from).generateMoves(board, from, kindTargets, moves, start);
+        if (kingSquare < 0 && kind == ALL) {
+            return end;
+        }
+        int kept = start;
+        for (int i = start; i < end; i++) {
+            int move = moves[i];
+            if (isWantedKind(move) && (kingSquare < 0 || isLegal(from, move))) {
+                moves[kept++] = move;
+            }
+        }
+        return kept;
+    }
+
+    private void setKind(int kind) {
+        this.kind = kind;
+        long opponents = board.getTeamOccupancy(opponent);
+        kindTargets = switch (kind) {
+            case TACTICAL -> opponents;
+            case QUIET -> ~board.getOccupancy();
+            default -> ALL_SQUARES;
+        };
+    }
+
+    private boolean isWantedKind(int move) {
+        return kind == ALL || PackedMove.isTactical(move) == (kind == TACTICAL);
+    }
+
+    private boolean isLegal(int from, int move) {
+        int to = PackedMove.to(move);
+        if (from == kingSquare) {
+            if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+                int passed = to > from ? from + 1 : from - 1;
+                return checkers == 0 && !isAttackedWithoutKing(passed) && !isAttackedWithoutKing(to);
+            }
+            return !isAttackedWithoutKing(to);
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            return isEnPassantLegal(from, to);
+        }
+        long allowed = checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            allowed &= pinLines[from];
+        }
+        return (allowed & (1L << to)) != 0;
+    }
+
+    /**
+     * The king is lifted off the board first, so it cannot hide behind itself from a slider
+     */
+    private boolean isAttackedWithoutKing(int square) {
+        long occupancy = board.getOccupancy() & ~(1L << kingSquare);
+        return board.attackersOf(square, opponent, occupancy) != 0;
+    }
+
+    private boolean isEnPassantLegal(int from, int to) {
+        int captured = ChessBoard.squareIndex(ChessBoard.squareRow(from), ChessBoard.squareColumn(to));
+        long capturedBit = 1L << captured;
+        long occupancy = (board.getOccupancy() & ~(1L << from) & ~capturedBit) | (1L << to);
+        return (board.attackersOf(kingSquare, opponent, occupancy) & ~capturedBit) == 0;
+    }
+}
@@ -0,0 +1,140 @@
+package chess;
+
+/**
+ * Packs a move into a single int so move lists can live in reusable int arrays
+ * instead of allocating ChessMove and ChessPosition objects.
+ * <p>
+ * Layout, from the lowest bit: start square (6 bits), end square (6 bits),
+ * promotion piece (3 bits, 0 for none, else `PieceType.ordinal() + 1`), then the flag bits.
+ * Square indexes are the ones from `ChessBoard.squareIndex()`. 0 is never a valid move.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    public static final int DOUBLE_PAWN = 1 << 15;
+    public static final int EN_PASSANT  = 1 << 16;
+    public static final int CASTLE      = 1 << 17;
+    public static final int CAPTURE     = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    /**
+     * @param from The start square index
+     * @param to The end square index
+     * @param promotion The piece a pawn promotes to, or null
+     * @param flags Any of the flag constants, or 0
+     * @return The packed move
+     */
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << TO_SHIFT) | (promotionBits << PROMOTION_SHIFT) | flags;
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return The piece a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotionBits = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promotionBits == 0 ? null : PIECE_TYPES[promotionBits - 1];
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return True for captures (including En passant) and promotions, the moves that change material
+     */
+    public static boolean isTactical(int move) {
+        return (move & (CAPTURE | (PROMOTION_MASK << PROMOTION_SHIFT))) != 0;
+    }
+
+    /**
+     * @return The move without its flags. Two moves are the same move exactly when these are equal,
+     * matching `ChessMove.equals()`.
+     */
+    public static int withoutFlags(int move) {
+        return move & ((1 << 15) - 1);
+    }
+
+    /**
+     * Builds the public API form of a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        int from = from(move);
+        int to = to(move);
+        ChessMove chessMove = new ChessMove(
+                ChessPosition.ofSquare(from),
+                ChessPosition.ofSquare(to), promotion(move));
+        if (hasFlag(move, DOUBLE_PAWN)) {
+            chessMove.setDoublePawnMove();
+        }
+        return chessMove;
+    }
+
+    /**
+     * Packs a ChessMove, working out its flags from the board it will be played on
+     *
+     * @param board The board before the move
+     * @param move The move, which must start on a square holding a piece
+     * @return The packed move
+     */
+    public static int fromChessMove(ChessBoard board, ChessMove move) {
+        int from = ChessBoard.squareIndex(move.getStartPosition());
+        int to = ChessBoard.squareIndex(move.getEndPosition());
+        ChessPiece piece = board.getPiece(from);
+        int flags = 0;
+        if (board.getPiece(to) != null) {
+            flags |= CAPTURE;
+        }
+        ChessPiece.PieceType pieceType = piece.getPieceType();
+        if (pieceType == ChessPiece.PieceType.PAWN) {
+            int rowDiff = ChessBoard.squareRow(to) - ChessBoard.squareRow(from);
+            if (rowDiff == 2 || rowDiff == -2) {
+                flags |= DOUBLE_PAWN;
+            } else if (move.getEndPosition().equals(board.getEnPassant(piece.getTeamColor()))) {
+                flags |= EN_PASSANT | CAPTURE;
+            }
+        } else if (move.isCastleMove(pieceType) != null) {
+            flags |= CASTLE;
+        }
+        return of(from, to, move.getPromotionPiece(), flags);
+    }
+
+    /**
+     * @return The move in coordinate notation, like "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        int from = from(move);
+        int to = to(move);
+        StringBuilder builder = new StringBuilder(5)
+                .append((char) ('a' + ChessBoard.squareColumn(from) - 1)).append(ChessBoard.squareRow(from))
+                .append((char) ('a' + ChessBoard.squareColumn(to) - 1)).append(ChessBoard.squareRow(to));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            builder.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                default -> '?';
+            });
+        }
+        return builder.toString();
+    }
+}
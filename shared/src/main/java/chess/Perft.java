@@ -0,0 +1,144 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree (perft) to check the move generator against
+ * published reference counts, and to measure how fast it runs.
+ * <p>
+ * Run with `mvn -pl shared exec:java -Dexec.mainClass=chess.Perft -Dexec.args="[position] [depth] [divide]"`
+ */
+public class Perft {
+    /**
+     * Standard reference positions, see https://www.chessprogramming.org/Perft_Results
+     */
+    public enum Position {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                20L, 400L, 8_902L, 197_281L, 4_865_609L),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48L, 2_039L, 97_862L, 4_085_603L),
+        EN_PASSANT_ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14L, 191L, 2_812L, 43_238L, 674_624L),
+        CASTLING_PROMOTION("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6L, 264L, 9_467L, 422_333L),
+        BUGGY_PROMOTION("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44L, 1_486L, 62_379L, 2_103_487L);
+
+        private final String fen;
+        private final long[] expectedNodes;
+
+        Position(String fen, long... expectedNodes) {
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * @param depth The depth to look up, starting at 1
+         * @return The published node count at `depth`
+         */
+        public long getExpectedNodes(int depth) {
+            return expectedNodes[depth - 1];
+        }
+
+        public int getMaxDepth() {
+            return expectedNodes.length;
+        }
+    }
+
+    private static final int MAX_DEPTH = 32;
+
+    private final ChessGame game;
+    // One move buffer per ply so recursion never allocates
+    private final int[][] moveBuffers = new int[MAX_DEPTH + 1][ChessGame.MAX_MOVES];
+
+    public Perft(ChessGame game) {
+        this.game = game;
+    }
+
+    /**
+     * Counts the positions reachable from the current position in exactly `depth` moves
+     *
+     * @param depth How many moves deep to count, 0 counts just the current position
+     * @return The number of leaf nodes
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = moveBuffers[depth];
+        int count = game.generateLegalMoves(moves, 0);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.makeMoveUnchecked(moves[i]);
+            nodes += perft(depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts nodes under each root move separately. Comparing this with another engine's divide
+     * output narrows a wrong count down to the move that causes it.
+     *
+     * @param depth How many moves deep to count, at least 1
+     * @return Node count per root move, in generation order
+     */
+    public Map<ChessMove, Long> divide(int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        int[] moves = new int[ChessGame.MAX_MOVES];
+        int count = game.generateLegalMoves(moves, 0);
+        for (int i = 0; i < count; i++) {
+            game.makeMoveUnchecked(moves[i]);
+            counts.put(PackedMove.toChessMove(moves[i]), perft(depth - 1));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Sets up a game from a FEN string, see `ChessGame.fromFen()`
+     *
+     * @param fen The position in Forsyth-Edwards Notation
+     * @return A game in that position
+     */
+    public static ChessGame loadFen(String fen) {
+        return ChessGame.fromFen(fen);
+    }
+
+    public static void main(String[] args) {
+        List<Position> positions = args.length > 0 ? List.of(Position.valueOf(args[0])) : List.of(Position.values());
+        boolean divide = args.length > 2 && args[2].equals("divide");
+        for (Position position : positions) {
+            int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : position.getMaxDepth();
+            System.out.println(position + ": " + position.getFen());
+            Perft perft = new Perft(loadFen(position.getFen()));
+            if (divide) {
+                for (Map.Entry<ChessMove, Long> entry : perft.divide(maxDepth).entrySet()) {
+                    ChessMove move = entry.getKey();
+                    System.out.println("  " + move.getStartPosition() + move.getEndPosition()
+                            + (move.getPromotionPiece() != null ? " " + move.getPromotionPiece() : "")
+                            + ": " + entry.getValue());
+                }
+                continue;
+            }
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(depth);
+                long elapsed = Math.max(System.nanoTime() - start, 1);
+                String result = depth <= position.getMaxDepth() && nodes != position.getExpectedNodes(depth)
+                        ? "  MISMATCH, expected " + position.getExpectedNodes(depth) : "";
+                System.out.printf("  depth %d: %,d nodes in %.3f s (%,.0f nodes/s)%s%n", depth, nodes,
+                        elapsed / 1e9, nodes * 1e9 / elapsed, result);
+            }
+        }
+    }
+}
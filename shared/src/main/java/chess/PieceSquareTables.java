@@ -0,0 +1,134 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Material and piece-square values, in centipawns, for the middlegame and the endgame.
+ * <p>
+ * `ChessBoard` adds these up incrementally as pieces are placed and removed, so an evaluation can
+ * read the totals instead of visiting every piece. Values are stored per piece kind (team and type,
+ * see `ChessBoard`) and square index, with the material already added in and black's values
+ * negated, so the totals are always from white's point of view.
+ * <p>
+ * The tables are written from white's side with a8 in the top left, as the board is usually drawn.
+ */
+public final class PieceSquareTables {
+    /** Phase of a board with every piece but the pawns still on it, 0 is a bare endgame */
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by `PieceType.ordinal()`
+    private static final int[] MIDDLEGAME_MATERIAL = {0, 900, 330, 320, 500, 100};
+    private static final int[] ENDGAME_MATERIAL = {0, 900, 330, 320, 500, 100};
+    private static final int[] TYPE_PHASE = {0, 4, 1, 1, 2, 0};
+
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            20, 20, 20, 20, 20, 20, 20, 20,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    // Indexed by piece kind, then square index
+    static final int[][] MIDDLEGAME = new int[12][ChessBoard.SQUARE_COUNT];
+    static final int[][] ENDGAME = new int[12][ChessBoard.SQUARE_COUNT];
+    // Indexed by piece kind
+    static final int[] PHASE = new int[12];
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (TeamColor teamColor : TeamColor.values()) {
+            int sign = teamColor == TeamColor.WHITE ? 1 : -1;
+            for (PieceType pieceType : PieceType.values()) {
+                int type = pieceType.ordinal();
+                int kind = teamColor.ordinal() * PieceType.values().length + type;
+                PHASE[kind] = TYPE_PHASE[type];
+                for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+                    // The tables start at a8, so white flips the row and black, seeing the board
+                    // from the other side, reads them as they are
+                    int tableIndex = teamColor == TeamColor.WHITE ? square ^ 56 : square;
+                    MIDDLEGAME[kind][square] = sign * (MIDDLEGAME_MATERIAL[type] + middlegameTables[type][tableIndex]);
+                    ENDGAME[kind][square] = sign * (ENDGAME_MATERIAL[type] + endgameTables[type][tableIndex]);
+                }
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+}
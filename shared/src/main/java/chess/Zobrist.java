@@ -0,0 +1,55 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * The keys come from a fixed seed, so a position hashes to the same value in every process.
+ * Anything persisted or shared between processes (opening books, stored histories) relies on that.
+ */
+final class Zobrist {
+    private static final long SEED = 0x240C4E55L;
+
+    /** Indexed by piece kind (team and type, see `ChessBoard`) and square index */
+    static final long[][] PIECE_SQUARE = new long[12][ChessBoard.SQUARE_COUNT];
+    /** Indexed by the whole packed castle rights value */
+    static final long[] CASTLE_RIGHTS = new long[1 << 8];
+    /** Indexed by the column (0 based) of the En passant destination available to white */
+    static final long[] EN_PASSANT_WHITE = new long[ChessBoard.BOARD_SIZE];
+    /** Indexed by the column (0 based) of the En passant destination available to black */
+    static final long[] EN_PASSANT_BLACK = new long[ChessBoard.BOARD_SIZE];
+    /** Mixed in when black is to move */
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < squares.length; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        // One key per castle requirement bit, combined so a whole rights value is a single lookup
+        long[] castleBits = new long[8];
+        for (int bit = 0; bit < castleBits.length; bit++) {
+            castleBits[bit] = random.nextLong();
+        }
+        for (int rights = 0; rights < CASTLE_RIGHTS.length; rights++) {
+            long key = 0;
+            for (int bit = 0; bit < castleBits.length; bit++) {
+                if ((rights & (1 << bit)) != 0) {
+                    key ^= castleBits[bit];
+                }
+            }
+            CASTLE_RIGHTS[rights] = key;
+        }
+        for (int col = 0; col < ChessBoard.BOARD_SIZE; col++) {
+            EN_PASSANT_WHITE[col] = random.nextLong();
+            EN_PASSANT_BLACK[col] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
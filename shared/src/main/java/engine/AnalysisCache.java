@@ -0,0 +1,133 @@
+package engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Finished search results, keyed by `ChessGame.positionKey()`, so a position that is analysed over
+ * and over (an opening, a position on many boards of a simul) is only searched once.
+ * <p>
+ * Only the deepest result for a position is kept, and it answers any request it is at least as
+ * good as, see `satisfies()`. The least recently used positions are dropped once the estimated
+ * size of the entries goes over the memory budget.
+ * <p>
+ * Thread safe, meant to be shared by every search of a server.
+ */
+public class AnalysisCache {
+    // Rough footprint of an entry without its principal variation: map node, boxed key, result record
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Long, SearchResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param budgetBytes Estimated memory the entries may take up
+     */
+    public AnalysisCache(long budgetBytes) {
+        if (budgetBytes < ENTRY_OVERHEAD_BYTES) {
+            throw new IllegalArgumentException("Analysis cache budget too small: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @param key The position key
+     * @param limits The limits a search would run with
+     * @return A stored result at least as good as that search, or null
+     */
+    public synchronized SearchResult get(long key, SearchLimits limits) {
+        SearchResult result = entries.get(key);
+        if (result != null && satisfies(result, limits)) {
+            hits++;
+            return result;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores a result unless a deeper one for the position is already there
+     *
+     * @param key The position key the result was searched for
+     */
+    public synchronized void put(long key, SearchResult result) {
+        SearchResult previous = entries.get(key);
+        if (previous != null) {
+            if (previous.depth() > result.depth()) {
+                return;
+            }
+            sizeBytes -= sizeOf(previous);
+        }
+        entries.put(key, result);
+        sizeBytes += sizeOf(result);
+        Iterator<SearchResult> eldest = entries.values().iterator();
+        while (sizeBytes > budgetBytes && eldest.hasNext()) {
+            sizeBytes -= sizeOf(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * A result answers a request when it went at least as deep, spent at least as long or
+     * searched at least as many nodes as the request would, or when nothing more is to be
+     * found: a forced mate or a position without moves.
+     */
+    static boolean satisfies(SearchResult result, SearchLimits limits) {
+        return result.depth() >= limits.maxDepth()
+                || (limits.moveTimeMillis() > 0 && result.elapsedMillis() >= limits.moveTimeMillis())
+                || (limits.maxNodes() > 0 && result.nodes() >= limits.maxNodes())
+                || result.isMate()
+                || result.bestMove() == Search.NO_MOVE;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return Hits over lookups, 0 before the first lookup
+     */
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Estimated memory taken up by the entries
+     */
+    public synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    private static long sizeOf(SearchResult result) {
+        return ENTRY_OVERHEAD_BYTES + (long) result.principalVariation().length * Integer.BYTES;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AnalysisCache[%d entries, %d bytes, %d hits, %d misses, %d evictions]",
+                entries.size(), sizeBytes, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,131 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position in nearly constant time.
+ * <p>
+ * Material and piece-square values are kept up to date by `ChessBoard` as pieces move, separately
+ * for the middlegame and the endgame, and blended by how much material is left (a tapered evaluation).
+ * Pawn structure (doubled, isolated and passed pawns) is added from a `PawnHashTable`, so it is only
+ * worked out again when the pawns change.
+ * <p>
+ * Not thread safe, each `Search` owns one.
+ */
+public class Evaluator {
+    /** Pawn hash table size used by `Evaluator()` */
+    public static final int DEFAULT_PAWN_TABLE_ENTRIES = 1 << 14;
+
+    // Centipawns, indexed by `PieceType.ordinal()`. The king is never traded, so it counts for nothing.
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    // Indexed by how many rows the pawn has advanced from its team's back row
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90, 130, 0};
+
+    private static final long[] FILES = new long[ChessBoard.BOARD_SIZE];
+    private static final long[] ADJACENT_FILES = new long[ChessBoard.BOARD_SIZE];
+    // Indexed by team, then square: the squares in front of a pawn on its own and the adjacent files
+    private static final long[][] PASSED_SPANS = new long[TeamColor.values().length][ChessBoard.SQUARE_COUNT];
+
+    static {
+        for (int file = 0; file < ChessBoard.BOARD_SIZE; file++) {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < ChessBoard.BOARD_SIZE; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < ChessBoard.BOARD_SIZE - 1 ? FILES[file + 1] : 0L);
+        }
+        for (int square = 0; square < ChessBoard.SQUARE_COUNT; square++) {
+            int file = square & 7;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            int row = square >>> 3;
+            // Rows strictly in front, for white upwards and for black downwards
+            long whiteFront = row == 7 ? 0L : -1L << ((row + 1) * ChessBoard.BOARD_SIZE);
+            long blackFront = (1L << (row * ChessBoard.BOARD_SIZE)) - 1;
+            PASSED_SPANS[TeamColor.WHITE.ordinal()][square] = span & whiteFront;
+            PASSED_SPANS[TeamColor.BLACK.ordinal()][square] = span & blackFront;
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+
+    public Evaluator() {
+        this(new PawnHashTable(DEFAULT_PAWN_TABLE_ENTRIES));
+    }
+
+    /**
+     * @param pawnTable The table to cache pawn structure scores in
+     */
+    public Evaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * @param pieceType A piece type
+     * @return The material value of the piece in centipawns
+     */
+    public static int pieceValue(PieceType pieceType) {
+        return PIECE_VALUES[pieceType.ordinal()];
+    }
+
+    /**
+     * @param game The position to score
+     * @return Centipawns from the point of view of the team to move, positive when it is ahead
+     */
+    public int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long pawns = pawnTable.probe(board.pawnKey());
+        if (pawns == PawnHashTable.MISS) {
+            pawns = evaluatePawns(board);
+        }
+        int middlegame = board.getMiddlegameScore() + PawnHashTable.middlegame(pawns);
+        int endgame = board.getEndgameScore() + PawnHashTable.endgame(pawns);
+        // Promotions can push the phase past the starting material
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return game.getTeamTurn() == TeamColor.WHITE ? score : -score;
+    }
+
+    private long evaluatePawns(ChessBoard board) {
+        long whitePawns = board.getPieceBitboard(TeamColor.WHITE, PieceType.PAWN);
+        long blackPawns = board.getPieceBitboard(TeamColor.BLACK, PieceType.PAWN);
+        int middlegame = 0;
+        int endgame = 0;
+        for (TeamColor teamColor : TeamColor.values()) {
+            boolean white = teamColor == TeamColor.WHITE;
+            long own = white ? whitePawns : blackPawns;
+            long enemy = white ? blackPawns : whitePawns;
+            int sign = white ? 1 : -1;
+            for (int file = 0; file < ChessBoard.BOARD_SIZE; file++) {
+                int count = Long.bitCount(own & FILES[file]);
+                if (count > 1) {
+                    middlegame += sign * DOUBLED_MIDDLEGAME * (count - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (count - 1);
+                }
+            }
+            long remaining = own;
+            while (remaining != 0) {
+                int square = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                if ((own & ADJACENT_FILES[square & 7]) == 0) {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+                if ((enemy & PASSED_SPANS[teamColor.ordinal()][square]) == 0) {
+                    int advanced = white ? square >>> 3 : 7 - (square >>> 3);
+                    middlegame += sign * PASSED_MIDDLEGAME[advanced];
+                    endgame += sign * PASSED_ENDGAME[advanced];
+                }
+            }
+        }
+        return pawnTable.store(board.pawnKey(), middlegame, endgame);
+    }
+}
@@ -0,0 +1,152 @@
+package engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel search in the Lazy SMP style: every thread runs its own iterative deepening search of
+ * the same position, and they only cooperate through a shared `TranspositionTable`. Entries one
+ * thread stores cut off or reorder the others' searches, so together they reach a depth sooner.
+ * Half of the helpers start one iteration deeper to spread the threads over the tree.
+ * <p>
+ * The calling thread runs the main worker and `threads - 1` helpers run on a pool created once.
+ * Whichever worker finishes first raises the shared stop flag for the rest. The reported result
+ * is the deepest completed iteration, ties going to the lowest worker index (the main worker is 0),
+ * so the choice never depends on which thread happened to finish first.
+ */
+public class LazySmpSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final AtomicBoolean stopFlag = new AtomicBoolean();
+    private final Search[] workers;
+    private final ExecutorService helperPool;
+
+    /**
+     * @param threads Number of search threads, including the calling thread
+     */
+    public LazySmpSearch(int threads) {
+        this(threads, new TranspositionTable(Search.DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * @param threads Number of search threads, including the calling thread
+     * @param table The table shared by every thread
+     */
+    public LazySmpSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread, got " + threads);
+        }
+        this.table = table;
+        workers = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(table, stopFlag);
+        }
+        if (threads > 1) {
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            helperPool = null;
+        }
+    }
+
+    /**
+     * @param tablebase Exact results for positions with few pieces, shared by every thread, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Search worker : workers) {
+            worker.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * @return Number of search threads, including the calling thread
+     */
+    public int threads() {
+        return workers.length;
+    }
+
+    /**
+     * Searches a position on every thread until one of the limits is reached. Calls are serialized,
+     * since the workers are reused.
+     *
+     * @param position The position to search, left unchanged
+     * @param limits When to stop, node limits apply to each thread separately
+     * @return The best move found, with the node count summed over every thread
+     */
+    public synchronized SearchResult search(ChessGame position, SearchLimits limits) {
+        long start = System.nanoTime();
+        stopFlag.set(false);
+        table.newSearch();
+
+        List<Future<SearchResult>> helpers = new ArrayList<>(workers.length - 1);
+        for (int i = 1; i < workers.length; i++) {
+            Search helper = workers[i];
+            int firstDepth = 1 + (i & 1);
+            helpers.add(helperPool.submit(() -> {
+                try {
+                    return helper.iterate(position, limits, start, firstDepth, false);
+                } finally {
+                    stopFlag.set(true);
+                }
+            }));
+        }
+        SearchResult best;
+        try {
+            best = workers[0].iterate(position, limits, start, 1, true);
+        } finally {
+            stopFlag.set(true);
+        }
+
+        long nodes = best.nodes();
+        for (Future<SearchResult> helper : helpers) {
+            SearchResult result = awaitHelper(helper);
+            if (result == null) {
+                continue;
+            }
+            nodes += result.nodes();
+            if (result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, best.principalVariation(),
+                (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Asks a running search to stop. It returns the deepest result completed so far.
+     * Safe to call from another thread.
+     */
+    public void stop() {
+        stopFlag.set(true);
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+        }
+    }
+
+    private static SearchResult awaitHelper(Future<SearchResult> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+/**
+ * Hands out the moves of a position one at a time, most promising first, generating them in stages:
+ * the transposition table move, captures and promotions by most valuable victim and least valuable
+ * attacker, the killer moves, then the remaining quiet moves by their history score.
+ * <p>
+ * A stage is only generated once every move of the stages before it was taken, so a node that cuts
+ * off on the hash move or a capture never generates its quiet moves at all.
+ * <p>
+ * `Search` keeps one per ply and reuses it, nothing is allocated per node.
+ */
+final class MovePicker {
+    /** Length of a history table, for both teams and every from and to square */
+    static final int HISTORY_SIZE = 2 * ChessBoard.SQUARE_COUNT * ChessBoard.SQUARE_COUNT;
+
+    private static final int STAGE_HASH = 0;
+    private static final int STAGE_GENERATE_TACTICAL = 1;
+    private static final int STAGE_TACTICAL = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_GENERATE_QUIET = 4;
+    private static final int STAGE_QUIET = 5;
+    private static final int STAGE_DONE = 6;
+
+    private final int[] moves = new int[ChessGame.MAX_MOVES];
+    private final int[] scores = new int[ChessGame.MAX_MOVES];
+
+    private ChessGame game;
+    private int[] history;
+    private boolean tacticalOnly;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int stage;
+    private int index;
+    private int count;
+
+    /**
+     * Starts picking moves for the position `game` is in now
+     *
+     * @param hashMove The transposition table move, or `Search.NO_MOVE`. Checked for legality first.
+     * @param firstKiller The newer killer move for this ply, or `Search.NO_MOVE`
+     * @param secondKiller The older killer move for this ply, or `Search.NO_MOVE`
+     * @param history History scores indexed by `historyIndex()`
+     * @param tacticalOnly Only hand out captures and promotions, for the quiescence search
+     */
+    void init(ChessGame game, int hashMove, int firstKiller, int secondKiller, int[] history, boolean tacticalOnly) {
+        this.game = game;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.history = history;
+        this.tacticalOnly = tacticalOnly;
+        stage = STAGE_HASH;
+    }
+
+    /**
+     * @return The next legal move, or `Search.NO_MOVE` when there are none left
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH -> {
+                    stage = STAGE_GENERATE_TACTICAL;
+                    if (hashMove != Search.NO_MOVE && (!tacticalOnly || PackedMove.isTactical(hashMove))
+                            && game.isLegalMove(hashMove)) {
+                        return hashMove;
+                    }
+                    hashMove = Search.NO_MOVE;
+                }
+                case STAGE_GENERATE_TACTICAL -> {
+                    count = game.generateTacticalMoves(moves, 0);
+                    scoreTactical();
+                    index = 0;
+                    stage = STAGE_TACTICAL;
+                }
+                case STAGE_TACTICAL -> {
+                    int move = pickBest();
+                    if (move == Search.NO_MOVE) {
+                        stage = tacticalOnly ? STAGE_DONE : STAGE_KILLERS;
+                        index = 0;
+                    } else if (move != hashMove) {
+                        return move;
+                    }
+                }
+                case STAGE_KILLERS -> {
+                    if (index >= 2) {
+                        stage = STAGE_GENERATE_QUIET;
+                        break;
+                    }
+                    int killer = index == 0 ? firstKiller : secondKiller;
+                    index++;
+                    // Killers come from sibling positions, so they are only played if they are legal here
+                    if (killer != Search.NO_MOVE && killer != hashMove && !PackedMove.isTactical(killer)
+                            && game.isLegalMove(killer)) {
+                        return killer;
+                    }
+                }
+                case STAGE_GENERATE_QUIET -> {
+                    count = game.generateQuietMoves(moves, 0);
+                    int color = game.getTeamTurn().ordinal();
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = history[historyIndex(color, moves[i])];
+                    }
+                    index = 0;
+                    stage = STAGE_QUIET;
+                }
+                case STAGE_QUIET -> {
+                    int move = pickBest();
+                    if (move == Search.NO_MOVE) {
+                        stage = STAGE_DONE;
+                    } else if (move != hashMove && move != firstKiller && move != secondKiller) {
+                        return move;
+                    }
+                }
+                default -> {
+                    return Search.NO_MOVE;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param color `TeamColor.ordinal()` of the team making the move
+     * @param move A packed move
+     * @return Where the move's score is kept in a history table of `HISTORY_SIZE` entries
+     */
+    static int historyIndex(int color, int move) {
+        return (color * ChessBoard.SQUARE_COUNT + PackedMove.from(move)) * ChessBoard.SQUARE_COUNT + PackedMove.to(move);
+    }
+
+    private void scoreTactical() {
+        ChessBoard board = game.getBoard();
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int score = 0;
+            if (PackedMove.hasFlag(move, PackedMove.CAPTURE)) {
+                ChessPiece victim = board.getPiece(PackedMove.to(move));
+                // En passant is the only capture onto an empty square
+                int victimValue = victim == null ? Evaluator.pieceValue(ChessPiece.PieceType.PAWN)
+                                                 : Evaluator.pieceValue(victim.getPieceType());
+                int attackerValue = Evaluator.pieceValue(board.getPiece(PackedMove.from(move)).getPieceType());
+                score = 10 * victimValue - attackerValue;
+            }
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            if (promotion != null) {
+                score += Evaluator.pieceValue(promotion);
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Selection sort one step at a time: most nodes cut off after a move or two, so sorting the
+     * whole list up front would mostly be wasted.
+     */
+    private int pickBest() {
+        if (index >= count) {
+            return Search.NO_MOVE;
+        }
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        index++;
+        return move;
+    }
+}
@@ -0,0 +1,151 @@
+package engine;
+
+import chess.ChessGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Book moves for known opening positions, read from a file built by `OpeningBookBuilder`.
+ * <p>
+ * The file is a header followed by 16-byte entries, big endian: position key (long, see
+ * `ChessGame.positionKey()`), packed move (int, see `PackedMove`) and weight (int). Entries are
+ * sorted by key, then by weight from high to low. The header has the same size as an entry:
+ * `MAGIC` (long), `VERSION` (int) and the entry count (int).
+ * <p>
+ * The file is memory mapped and binary searched in place, so opening a book reads nothing up front
+ * and a probe allocates nothing. Probes only use absolute reads of a read-only buffer, so one book
+ * can be shared by any number of threads.
+ */
+public class OpeningBook {
+    /** "CHESSBK" followed by a zero byte */
+    public static final long MAGIC = 0x43484553_53424B00L;
+    public static final int VERSION = 1;
+    public static final int ENTRY_BYTES = 16;
+
+    private static final int MOVE_OFFSET = Long.BYTES;
+    private static final int WEIGHT_OFFSET = MOVE_OFFSET + Integer.BYTES;
+
+    private final ByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(ByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * Maps a book file. The mapping stays valid after the file is closed.
+     *
+     * @param path The book file
+     * @return The book
+     * @throws IOException If the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < ENTRY_BYTES || size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(Long.BYTES) != VERSION) {
+                throw new IOException("Not an opening book, or an unsupported version: " + path);
+            }
+            int count = buffer.getInt(Long.BYTES + Integer.BYTES);
+            if ((long) (count + 1) * ENTRY_BYTES != size) {
+                throw new IOException("Opening book entry count does not match its size: " + path);
+            }
+            return new OpeningBook(buffer.slice(ENTRY_BYTES, count * ENTRY_BYTES), count);
+        }
+    }
+
+    /**
+     * @return Number of entries, that is position and move pairs
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param game The position
+     * @return The book move with the highest weight, or `Search.NO_MOVE` if the position is not in
+     * the book. Check it with `ChessGame.isLegalMove()`, two positions can share a key.
+     */
+    public int probe(ChessGame game) {
+        return probe(game.positionKey());
+    }
+
+    /**
+     * @param key The position key
+     * @return The book move with the highest weight, or `Search.NO_MOVE`
+     */
+    public int probe(long key) {
+        int index = firstIndex(key);
+        return index < 0 ? Search.NO_MOVE : move(index);
+    }
+
+    /**
+     * Picks one of the book moves at random, in proportion to their weights, for some variety
+     *
+     * @param key The position key
+     * @param random A random number, any value
+     * @return The picked move, or `Search.NO_MOVE` if the position is not in the book
+     */
+    public int probe(long key, long random) {
+        int first = firstIndex(key);
+        if (first < 0) {
+            return Search.NO_MOVE;
+        }
+        long total = 0;
+        int end = first;
+        while (end < count && key(end) == key) {
+            total += weight(end);
+            end++;
+        }
+        if (total <= 0) {
+            return move(first);
+        }
+        long pick = Math.floorMod(random, total);
+        for (int i = first; i < end; i++) {
+            pick -= weight(i);
+            if (pick < 0) {
+                return move(i);
+            }
+        }
+        return move(first);
+    }
+
+    /**
+     * @return Index of the first entry for the key, or -1 if there is none
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = count;
+        // Lower bound: the first index whose key is not less than `key`
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < count && key(low) == key ? low : -1;
+    }
+
+    private long key(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int move(int index) {
+        return entries.getInt(index * ENTRY_BYTES + MOVE_OFFSET);
+    }
+
+    private int weight(int index) {
+        return entries.getInt(index * ENTRY_BYTES + WEIGHT_OFFSET);
+    }
+}
@@ -0,0 +1,330 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPiece.PieceType;
+import chess.PackedMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles PGN games into an `OpeningBook` file. Every position in the first plies of a game gets
+ * the move played in it, weighted by how many games played that move there.
+ * <p>
+ * Comments, variations and annotations are skipped. Games that start from a set-up position are
+ * left out, and a game stops counting at its first move that cannot be read.
+ * <p>
+ * Run with `mvn -pl shared exec:java -Dexec.mainClass=engine.OpeningBookBuilder -Dexec.args="games.pgn book.bin [plies]"`
+ */
+public class OpeningBookBuilder {
+    /** How many plies of each game go into the book by default */
+    public static final int DEFAULT_MAX_PLY = 24;
+
+    private final int maxPly;
+    // Position key to move to weight, sorted by key as the file is
+    private final TreeMap<Long, Map<Integer, Integer>> positions = new TreeMap<>();
+    private final int[] moveBuffer = new int[ChessGame.MAX_MOVES];
+    private int games;
+    private int skippedMoves;
+
+    /**
+     * @param maxPly How many plies of each game to put in the book
+     */
+    public OpeningBookBuilder(int maxPly) {
+        this.maxPly = maxPly;
+    }
+
+    /**
+     * Reads every game of a PGN file
+     *
+     * @param pgn The PGN text, may hold any number of games
+     * @throws IOException If reading fails
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        PgnGame current = new PgnGame();
+        int c = pgn.read();
+        while (c != -1) {
+            if (c == '[') {
+                String tag = readUntil(pgn, ']');
+                if (current.hasMoveText) {
+                    current = new PgnGame();
+                }
+                if (tag.startsWith("FEN") || tag.startsWith("SetUp \"1\"")) {
+                    current.finished = true;
+                }
+                c = pgn.read();
+            } else if (c == '{') {
+                readUntil(pgn, '}');
+                c = pgn.read();
+            } else if (c == ';') {
+                readUntil(pgn, '\n');
+                c = pgn.read();
+            } else if (c == '(') {
+                skipVariation(pgn);
+                c = pgn.read();
+            } else if (Character.isWhitespace(c)) {
+                c = pgn.read();
+            } else {
+                StringBuilder token = new StringBuilder();
+                while (c != -1 && !Character.isWhitespace(c) && "[{;(".indexOf(c) < 0) {
+                    token.append((char) c);
+                    c = pgn.read();
+                }
+                addToken(current, token.toString());
+            }
+        }
+    }
+
+    /**
+     * Writes the book, see `OpeningBook` for the format
+     *
+     * @param path Where to write it, replaced if it exists
+     * @throws IOException If writing fails
+     */
+    public void write(Path path) throws IOException {
+        int count = 0;
+        for (Map<Integer, Integer> moves : positions.values()) {
+            count += moves.size();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(count);
+            for (Map.Entry<Long, Map<Integer, Integer>> position : positions.entrySet()) {
+                List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(position.getValue().entrySet());
+                moves.sort((a, b) -> a.getValue().equals(b.getValue()) ? Integer.compare(a.getKey(), b.getKey())
+                                                                        : Integer.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<Integer, Integer> move : moves) {
+                    out.writeLong(position.getKey());
+                    out.writeInt(move.getKey());
+                    out.writeInt(move.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Number of games read
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return Number of positions in the book so far
+     */
+    public int getPositions() {
+        return positions.size();
+    }
+
+    /**
+     * @return Number of moves that could not be read, each one ending its game early
+     */
+    public int getSkippedMoves() {
+        return skippedMoves;
+    }
+
+    private void addToken(PgnGame current, String token) {
+        current.hasMoveText = true;
+        if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+            current.finished = true;
+            return;
+        }
+        // Move numbers ("12." or "12...") may be glued to the move that follows them
+        int start = 0;
+        while (start < token.length() && Character.isDigit(token.charAt(start))) {
+            start++;
+        }
+        if (start < token.length() && token.charAt(start) == '.') {
+            while (start < token.length() && token.charAt(start) == '.') {
+                start++;
+            }
+        } else {
+            start = 0;
+        }
+        String san = token.substring(start);
+        if (san.isEmpty() || san.charAt(0) == '$' || current.finished) {
+            return;
+        }
+        if (current.plies == 0) {
+            games++;
+        }
+        if (current.plies >= maxPly) {
+            return;
+        }
+        int move = parseSan(current.game, san, moveBuffer);
+        if (move == PackedMove.NONE) {
+            skippedMoves++;
+            current.finished = true;
+            return;
+        }
+        positions.computeIfAbsent(current.game.positionKey(), key -> new HashMap<>())
+                .merge(move, 1, Integer::sum);
+        current.game.makeMoveUnchecked(move);
+        current.plies++;
+    }
+
+    /**
+     * Finds the legal move a move in standard algebraic notation stands for, like "Nbd7", "exd6",
+     * "e8=Q+" or "O-O-O"
+     *
+     * @param game The position the move is played in
+     * @param san The move
+     * @param moves Scratch buffer of `ChessGame.MAX_MOVES` moves
+     * @return The packed move, or `PackedMove.NONE` if it is not exactly one legal move
+     */
+    static int parseSan(ChessGame game, String san, int[] moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        san = san.substring(0, end).replace('0', 'O');
+        int count = game.generateLegalMoves(moves, 0);
+        ChessBoard board = game.getBoard();
+
+        if (san.equals("O-O") || san.equals("O-O-O")) {
+            int column = san.equals("O-O") ? ChessBoard.KNIGHT_2_COL : ChessBoard.BISHOP_1_COL;
+            for (int i = 0; i < count; i++) {
+                if (PackedMove.hasFlag(moves[i], PackedMove.CASTLE)
+                        && ChessBoard.squareColumn(PackedMove.to(moves[i])) == column) {
+                    return moves[i];
+                }
+            }
+            return PackedMove.NONE;
+        }
+
+        PieceType promotion = null;
+        int promotionAt = san.indexOf('=');
+        if (promotionAt < 0 && san.length() > 2 && pieceType(san.charAt(san.length() - 1)) != null
+                && Character.isDigit(san.charAt(san.length() - 2))) {
+            // Promotion written without the '=', like "e8Q"
+            promotionAt = san.length() - 1;
+        }
+        if (promotionAt >= 0) {
+            promotion = pieceType(san.charAt(san.length() - 1));
+            if (promotion == null) {
+                return PackedMove.NONE;
+            }
+            san = san.substring(0, promotionAt);
+        }
+
+        PieceType pieceType = san.isEmpty() ? null : pieceType(san.charAt(0));
+        int first = pieceType == null ? 0 : 1;
+        if (pieceType == null) {
+            pieceType = PieceType.PAWN;
+        }
+        if (san.length() - first < 2) {
+            return PackedMove.NONE;
+        }
+        int toColumn = san.charAt(san.length() - 2) - 'a' + 1;
+        int toRow = san.charAt(san.length() - 1) - '0';
+        if (toColumn < 1 || toColumn > ChessBoard.BOARD_SIZE || toRow < 1 || toRow > ChessBoard.BOARD_SIZE) {
+            return PackedMove.NONE;
+        }
+        int to = ChessBoard.squareIndex(toRow, toColumn);
+        // Whatever is left between the piece and the destination disambiguates, apart from the capture mark
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int i = first; i < san.length() - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromColumn = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else if (c != 'x') {
+                return PackedMove.NONE;
+            }
+        }
+
+        int found = PackedMove.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            ChessPiece piece = board.getPiece(from);
+            if (PackedMove.to(move) != to || piece.getPieceType() != pieceType || PackedMove.promotion(move) != promotion
+                    || (fromColumn != 0 && ChessBoard.squareColumn(from) != fromColumn)
+                    || (fromRow != 0 && ChessBoard.squareRow(from) != fromRow)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                // Ambiguous
+                return PackedMove.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    private static PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> PieceType.KING;
+            case 'Q' -> PieceType.QUEEN;
+            case 'R' -> PieceType.ROOK;
+            case 'B' -> PieceType.BISHOP;
+            case 'N' -> PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    private static String readUntil(Reader reader, char end) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c = reader.read();
+        while (c != -1 && c != end) {
+            text.append((char) c);
+            c = reader.read();
+        }
+        return text.toString();
+    }
+
+    private static void skipVariation(Reader reader) throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = reader.read();
+            if (c == -1) {
+                return;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                readUntil(reader, '}');
+            }
+        }
+    }
+
+    private static final class PgnGame {
+        private final ChessGame game = new ChessGame();
+        private int plies;
+        // Set by the first token after the tags, a tag after that starts the next game
+        private boolean hasMoveText;
+        private boolean finished;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <games.pgn> <book.bin> [plies]");
+            System.exit(1);
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        OpeningBookBuilder builder = new OpeningBookBuilder(maxPly);
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            builder.addPgn(reader);
+        }
+        builder.write(Path.of(args[1]));
+        System.out.printf("%,d games, %,d positions, %,d unreadable moves%n", builder.getGames(),
+                builder.getPositions(), builder.getSkippedMoves());
+    }
+}
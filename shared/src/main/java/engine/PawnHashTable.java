@@ -0,0 +1,64 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Remembers pawn structure scores by `ChessBoard.pawnKey()`. Pawns move rarely compared to the
+ * other pieces, so nearly every evaluation finds its pawn structure here.
+ * <p>
+ * Not thread safe, each `Evaluator` owns one.
+ */
+public class PawnHashTable {
+    /** `probe()` result when the pawn structure is not in the table */
+    public static final long MISS = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    /**
+     * @param entries Number of entries, rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Pawn hash table needs at least 1 entry, got " + entries);
+        }
+        int capacity = Integer.highestOneBit(entries);
+        keys = new long[capacity];
+        scores = new long[capacity];
+        mask = capacity - 1;
+        // Key 0 (no pawns) would match every empty slot, so mark them with a key that is never looked up first
+        Arrays.fill(keys, 1L);
+    }
+
+    /**
+     * @param pawnKey The pawn key
+     * @return Both scores packed together (see `middlegame()` and `endgame()`), or `MISS`
+     */
+    public long probe(long pawnKey) {
+        int index = (int) pawnKey & mask;
+        return keys[index] == pawnKey ? scores[index] : MISS;
+    }
+
+    /**
+     * @param pawnKey The pawn key
+     * @param middlegame Middlegame score, from white's point of view
+     * @param endgame Endgame score, from white's point of view
+     * @return The packed scores, as `probe()` would return them
+     */
+    public long store(long pawnKey, int middlegame, int endgame) {
+        int index = (int) pawnKey & mask;
+        long packed = ((long) middlegame << Integer.SIZE) | (endgame & 0xFFFFFFFFL);
+        keys[index] = pawnKey;
+        scores[index] = packed;
+        return packed;
+    }
+
+    public static int middlegame(long packed) {
+        return (int) (packed >> Integer.SIZE);
+    }
+
+    public static int endgame(long packed) {
+        return (int) packed;
+    }
+}
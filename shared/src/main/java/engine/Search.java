@@ -0,0 +1,415 @@
+package engine;
+
+import chess.ChessGame;
+import chess.PackedMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses a move with a negamax alpha-beta search, deepened one ply at a time until a depth, time
+ * or node limit is reached. Leaves are resolved with a quiescence search over captures and promotions
+ * so a score is never taken in the middle of an exchange.
+ * <p>
+ * Results are remembered in a `TranspositionTable` so positions reached by different move orders
+ * are searched once, and the best move found for a position is tried first when it comes back.
+ * The other moves are handed out by a `MovePicker`, with killer moves and a history table ranking
+ * the quiet ones by how often they refuted other positions.
+ * <p>
+ * A search works on its own copy of the game, so the caller's game is never touched. Buffers are
+ * allocated once and reused, so keep one instance per thread and call `search()` repeatedly.
+ */
+public class Search {
+    /** Deepest ply the search (including quiescence) will reach */
+    public static final int MAX_PLY = 64;
+    /** Score of being mated right now, mate in n plies scores `MATE - n` */
+    public static final int MATE = 32000;
+    /** Returned as the best move when the side to move has no legal move */
+    public static final int NO_MOVE = 0;
+
+    /** Transposition table size used by `Search()` */
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    private static final int INFINITY = MATE + 1;
+    // How often, in nodes, the clock and stop flag are looked at
+    private static final int CHECK_INTERVAL_MASK = 2047;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final AtomicBoolean NOT_CANCELLED = new AtomicBoolean();
+
+    private final Evaluator evaluator = new Evaluator();
+    private final TranspositionTable table;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    // Two quiet moves per ply that recently caused a beta cutoff, newest first
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // How often each quiet move caused a cutoff, weighted by depth, see `MovePicker.historyIndex()`
+    private final int[] history = new int[MovePicker.HISTORY_SIZE];
+    // Triangular principal variation table: row `ply` holds the best line found from that ply
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private int[] previousPv = new int[0];
+
+    // Shared by every worker of a `LazySmpSearch`, so one of them finishing stops the rest
+    private final AtomicBoolean stopFlag;
+    // Owned by the caller of the running search, see `search(ChessGame, SearchLimits, AtomicBoolean)`
+    private AtomicBoolean cancelFlag = NOT_CANCELLED;
+    private final TablebasePosition tablebasePosition = new TablebasePosition();
+    private Tablebase tablebase;
+
+    private ChessGame game;
+    private boolean aborted;
+    // Aborting is only allowed once the first iteration finished, so there is always a move to return
+    private boolean canAbort;
+    private long nodes;
+    private long deadline;
+    private long nodeLimit;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * @param table The transposition table to read and fill, may be shared with other searches
+     */
+    public Search(TranspositionTable table) {
+        this(table, new AtomicBoolean());
+    }
+
+    Search(TranspositionTable table, AtomicBoolean stopFlag) {
+        this.table = table;
+        this.stopFlag = stopFlag;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    /**
+     * @param tablebase Exact results to use below the root for positions with few pieces, or null for none
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches a position until one of the limits is reached
+     *
+     * @param position The position to search, left unchanged
+     * @param limits When to stop
+     * @return The best move found with its score and principal variation
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        return search(position, limits, NOT_CANCELLED);
+    }
+
+    /**
+     * Searches a position until one of the limits is reached or `cancelled` is set. Unlike `stop()`,
+     * the flag belongs to this one search: it is never reset here, so setting it before the search
+     * starts still stops it, and setting it late cannot stop a later search on this instance.
+     *
+     * @param cancelled Set from any thread to stop the search, it then returns the last completed iteration
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits, AtomicBoolean cancelled) {
+        long start = System.nanoTime();
+        stopFlag.set(false);
+        cancelFlag = cancelled;
+        table.newSearch();
+        try {
+            return iterate(position, limits, start, 1, true);
+        } finally {
+            cancelFlag = NOT_CANCELLED;
+        }
+    }
+
+    /**
+     * Runs iterative deepening without resetting the stop flag or the table generation,
+     * so several searches can work on the same position and table at once.
+     *
+     * @param start `System.nanoTime()` when the whole search started, for the time limit
+     * @param firstDepth The first iteration, helpers of a parallel search skip ahead to spread out
+     * @param mustComplete If the first iteration must finish even when asked to stop
+     * @return The result of the deepest completed iteration, or null if none completed
+     */
+    SearchResult iterate(ChessGame position, SearchLimits limits, long start, int firstDepth, boolean mustComplete) {
+        game = position.copy();
+        aborted = false;
+        canAbort = !mustComplete;
+        nodes = 0;
+        deadline = limits.moveTimeMillis() > 0 ? start + limits.moveTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        nodeLimit = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        previousPv = new int[0];
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, NO_MOVE);
+        }
+        // Keep what was learned in earlier searches, but let this one outweigh it
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 2;
+        }
+
+        int maxDepth = Math.min(Math.max(limits.maxDepth(), 1), MAX_PLY);
+        SearchResult result = null;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            previousPv = Arrays.copyOf(pvTable[0], pvLength[0]);
+            result = new SearchResult(previousPv.length > 0 ? previousPv[0] : NO_MOVE, score, depth, nodes,
+                    previousPv, (System.nanoTime() - start) / 1_000_000L);
+            canAbort = true;
+            if (isMateScore(score) || previousPv.length == 0) {
+                // Deeper iterations cannot find a shorter mate, and a position without moves has nothing to search
+                break;
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                result.principalVariation(), (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Asks a running search to stop. It returns the result of the last completed iteration.
+     * Safe to call from another thread.
+     */
+    public void stop() {
+        stopFlag.set(true);
+    }
+
+    /**
+     * @param score A search score
+     * @return True if the score is a forced mate for either side
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(ply, alpha, beta);
+        }
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != Tablebase.NOT_FOUND) {
+            return tablebaseScore;
+        }
+
+        // Nodes searched with an open window lie on the principal variation. They never take a table
+        // cutoff, which would cut the variation short.
+        boolean pvNode = beta - alpha > 1;
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        int hashMove = NO_MOVE;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (hashMove == NO_MOVE && ply < previousPv.length) {
+            hashMove = previousPv[ply];
+        }
+        MovePicker picker = pickers[ply];
+        picker.init(game, hashMove, killers[ply][0], killers[ply][1], history, false);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = NO_MOVE;
+        int searched = 0;
+        for (int move = picker.next(); move != NO_MOVE; move = picker.next()) {
+            game.makeMoveUnchecked(move);
+            int score;
+            if (searched == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                // Principal variation search: prove the move is no better with a null window,
+                // and only search it again properly if it is
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove();
+            searched++;
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!PackedMove.isTactical(move)) {
+                            rememberCutoff(ply, depth, move);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (searched == 0) {
+            return game.isInCheck(game.getTeamTurn()) ? -MATE + ply : 0;
+        }
+
+        int bound;
+        if (best >= beta) {
+            bound = TranspositionTable.BOUND_LOWER;
+        } else if (best > originalAlpha) {
+            bound = TranspositionTable.BOUND_EXACT;
+        } else {
+            bound = TranspositionTable.BOUND_UPPER;
+            // Every move failed low, none of them is known to be best
+            bestMove = NO_MOVE;
+        }
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Mate scores are stored relative to the position instead of the root, so they stay right
+     * when the position is reached at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * The root is always searched, so there is a move to return
+     *
+     * @return The exact score of the position at this ply, or `Tablebase.NOT_FOUND`
+     */
+    private int probeTablebase(int ply) {
+        if (tablebase == null || ply == 0 || Long.bitCount(game.getBoard().getOccupancy()) > tablebase.maxPieces()) {
+            return Tablebase.NOT_FOUND;
+        }
+        int score = tablebase.probe(game, tablebasePosition);
+        if (score == Tablebase.NOT_FOUND || score == 0) {
+            return score;
+        }
+        // Mates in the table count from the position, like table scores
+        return score > 0 ? score - ply : score + ply;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(game);
+        }
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != Tablebase.NOT_FOUND) {
+            return tablebaseScore;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int best = -INFINITY;
+        if (!inCheck) {
+            // Standing pat: the side to move is assumed to have a quiet move at least as good as doing nothing
+            best = evaluator.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        // Out of check only captures and promotions are searched, in check every evasion is
+        MovePicker picker = pickers[ply];
+        picker.init(game, NO_MOVE, NO_MOVE, NO_MOVE, history, !inCheck);
+        int searched = 0;
+        for (int move = picker.next(); move != NO_MOVE; move = picker.next()) {
+            game.makeMoveUnchecked(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            searched++;
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (searched == 0 && inCheck) {
+            return -MATE + ply;
+        }
+        return best;
+    }
+
+    /**
+     * A quiet move refuted the position: try it early in sibling positions (killer) and anywhere
+     * else it comes up (history).
+     */
+    private void rememberCutoff(int ply, int depth, int move) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = MovePicker.historyIndex(game.getTeamTurn().ordinal(), move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            // Halve everything so the scores stay comparable and cannot overflow
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 1;
+            }
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - (ply + 1));
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    private boolean shouldStop() {
+        if (aborted) {
+            return true;
+        }
+        if (!canAbort) {
+            return false;
+        }
+        if (nodes >= nodeLimit
+                || ((nodes & CHECK_INTERVAL_MASK) == 0 && (stopFlag.get() || cancelFlag.get() || System.nanoTime() > deadline))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+}
@@ -0,0 +1,35 @@
+package engine;
+
+/**
+ * When a search should stop. A zero or negative time or node limit means no limit of that kind,
+ * the depth limit always applies.
+ *
+ * @param maxDepth The deepest iteration to search, in plies
+ * @param moveTimeMillis Wall clock budget for the whole search
+ * @param maxNodes Node budget for the whole search
+ */
+public record SearchLimits(int maxDepth, long moveTimeMillis, long maxNodes) {
+    /**
+     * @param depth The depth to search to, in plies
+     * @return Limits that only stop on depth
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * @param millis The time budget in milliseconds
+     * @return Limits that search as deep as the time allows
+     */
+    public static SearchLimits moveTime(long millis) {
+        return new SearchLimits(Search.MAX_PLY, millis, 0);
+    }
+
+    /**
+     * @param nodes The node budget
+     * @return Limits that search as deep as the node budget allows
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Search.MAX_PLY, 0, nodes);
+    }
+}
@@ -0,0 +1,72 @@
+package engine;
+
+import chess.ChessMove;
+import chess.PackedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of a search. Moves are packed, see `PackedMove`.
+ *
+ * @param bestMove The move to play, `Search.NO_MOVE` if the side to move has none
+ * @param score Centipawns from the point of view of the side to move, or a mate score (see `Search.MATE`)
+ * @param depth The deepest completed iteration
+ * @param nodes Nodes visited over every iteration
+ * @param principalVariation The expected line, starting with `bestMove`
+ * @param elapsedMillis Wall clock time spent
+ */
+public record SearchResult(int bestMove, int score, int depth, long nodes, int[] principalVariation,
+                           long elapsedMillis) {
+    /**
+     * @return The best move, or null if the side to move has no legal move
+     */
+    public ChessMove getBestMove() {
+        return bestMove == Search.NO_MOVE ? null : PackedMove.toChessMove(bestMove);
+    }
+
+    /**
+     * @return The principal variation as moves
+     */
+    public List<ChessMove> getPrincipalVariation() {
+        List<ChessMove> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation) {
+            moves.add(PackedMove.toChessMove(move));
+        }
+        return moves;
+    }
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Search.isMateScore(score);
+    }
+
+    /**
+     * @return Moves until mate, positive if the side to move mates and negative if it gets mated.
+     * 0 when the score is not a mate.
+     */
+    public int getMateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return score > 0 ? moves : -moves;
+    }
+
+    /**
+     * @return The principal variation in coordinate notation, like "e2e4 e7e5"
+     */
+    public String principalVariationString() {
+        StringBuilder line = new StringBuilder();
+        for (int move : principalVariation) {
+            if (!line.isEmpty()) {
+                line.append(' ');
+            }
+            line.append(PackedMove.toString(move));
+        }
+        return line.toString();
+    }
+}
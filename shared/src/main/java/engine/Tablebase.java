@@ -0,0 +1,178 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessGame.TeamColor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exact results for endings with few pieces, read from the files `TablebaseGenerator` writes.
+ * <p>
+ * A file is named after its table ("KQvKR.tb", see `TablebaseMaterial`) and holds a 16-byte header,
+ * `MAGIC` (long), `VERSION` (int) and the entry count (int), then one byte per position: 0 for a
+ * draw, n > 0 when the side to move mates in n plies, -(n + 1) when it is mated in n plies, and
+ * `ILLEGAL` for positions that cannot happen.
+ * <p>
+ * Files are memory mapped, read with absolute gets only, so one `Tablebase` can be shared by every
+ * search thread.
+ */
+public class Tablebase {
+    /** `probe()` result for a position no loaded table covers */
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final String EXTENSION = ".tb";
+    /** "CHESSTB" followed by a zero byte */
+    public static final long MAGIC = 0x43484553_53544200L;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final byte DRAW = 0;
+    public static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    private static final TeamColor[] TEAM_COLORS = TeamColor.values();
+
+    // Sorted by key, for a binary search that does not box the key
+    private final int[] keys;
+    private final TablebaseMaterial[] materials;
+    private final ByteBuffer[] entries;
+    private final int maxPieces;
+
+    private Tablebase(List<TablebaseMaterial> materials, List<ByteBuffer> entries) {
+        int count = materials.size();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> materials.get(i).key));
+        keys = new int[count];
+        this.materials = new TablebaseMaterial[count];
+        this.entries = new ByteBuffer[count];
+        int pieces = 0;
+        for (int i = 0; i < count; i++) {
+            this.materials[i] = materials.get(order[i]);
+            this.entries[i] = entries.get(order[i]);
+            keys[i] = this.materials[i].key;
+            pieces = Math.max(pieces, this.materials[i].count);
+        }
+        maxPieces = pieces;
+    }
+
+    /**
+     * Maps every table file in a directory
+     *
+     * @param directory Where `TablebaseGenerator` wrote the tables
+     * @return The tables found, possibly none
+     * @throws IOException If a file cannot be read or is not a table
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        List<TablebaseMaterial> materials = new ArrayList<>();
+        List<ByteBuffer> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                TablebaseMaterial material = TablebaseMaterial.parse(name.substring(0, name.length() - EXTENSION.length()));
+                materials.add(material);
+                entries.add(map(file, material));
+            }
+        }
+        return new Tablebase(materials, entries);
+    }
+
+    static ByteBuffer map(Path file, TablebaseMaterial material) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + (long) material.size) {
+                throw new IOException("Tablebase " + file + " should hold " + material.size + " entries");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong(0) != MAGIC || buffer.getInt(Long.BYTES) != VERSION
+                    || buffer.getInt(Long.BYTES + Integer.BYTES) != material.size) {
+                throw new IOException("Not a tablebase, or an unsupported version: " + file);
+            }
+            return buffer.slice(HEADER_BYTES, material.size);
+        }
+    }
+
+    /**
+     * @return The most pieces, kings included, of any loaded table. 0 if none are loaded.
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return Number of loaded tables
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @param game The position, without castling rights or an En passant capture
+     * @return 0 for a draw, `Search.MATE - n` when the side to move mates in n plies,
+     * `-Search.MATE + n` when it is mated in n plies, or `NOT_FOUND`
+     */
+    public int probe(ChessGame game) {
+        return probe(game, new TablebasePosition());
+    }
+
+    /**
+     * `probe()` with a position to work in, so a search probing at every node does not allocate one each time
+     */
+    int probe(ChessGame game, TablebasePosition position) {
+        ChessBoard board = game.getBoard();
+        if (Long.bitCount(board.getOccupancy()) > maxPieces || canCastle(board)
+                || board.getEnPassant(game.getTeamTurn()) != null) {
+            return NOT_FOUND;
+        }
+        if (!position.load(board, game.getTeamTurn())) {
+            return NOT_FOUND;
+        }
+        int key = position.canonicalize();
+        if (position.count <= 2) {
+            return 0;
+        }
+        int table = Arrays.binarySearch(keys, key);
+        if (table < 0) {
+            return NOT_FOUND;
+        }
+        byte value = entries[table].get(materials[table].index(position.squares, position.sideToMove));
+        return value == ILLEGAL ? NOT_FOUND : toScore(value);
+    }
+
+    /**
+     * Castle rights are kept per piece, so a king that never moved keeps its bits after its rooks are
+     * gone. Only a king and rook that both still could castle put the position outside the tables.
+     */
+    private static boolean canCastle(ChessBoard board) {
+        for (TeamColor teamColor : TEAM_COLORS) {
+            if (board.getCastleStatus(teamColor, ChessBoard.CastleType.KING_SIDE)
+                    || board.getCastleStatus(teamColor, ChessBoard.CastleType.QUEEN_SIDE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param value A table entry, not `ILLEGAL`
+     * @return The score `probe()` returns for it
+     */
+    static int toScore(byte value) {
+        if (value > 0) {
+            return Search.MATE - value;
+        }
+        if (value < 0) {
+            return -Search.MATE + (-value - 1);
+        }
+        return 0;
+    }
+}
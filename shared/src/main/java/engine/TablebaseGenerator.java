@@ -0,0 +1,332 @@
+package engine;
+
+import chess.Attacks;
+import chess.ChessGame.TeamColor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Builds `Tablebase` files by retrograde analysis.
+ * <p>
+ * Every position of a table is first checked for legality, mate and stalemate. Then pass n marks
+ * the positions won in n plies (a move reaches a position lost in n - 1) and lost in n plies (every
+ * move reaches a position won in at most n - 1, one of them in exactly n - 1). Captures and promotions
+ * lead into smaller tables, which are built first. Whatever is left when passes stop finding
+ * anything is a draw. Each pass runs over the whole table in parallel on every core.
+ * <p>
+ * Positions with castling rights or an En passant capture are not covered.
+ * <p>
+ * Run with `mvn -pl shared exec:java -Dexec.mainClass=engine.TablebaseGenerator -Dexec.args="directory [KQvKR ...]"`,
+ * without tables it builds every three piece table.
+ */
+public class TablebaseGenerator {
+    /** The tables built when none are named */
+    public static final List<String> THREE_PIECE_TABLES = List.of("KQvK", "KRvK", "KBvK", "KNvK", "KPvK");
+
+    // Mates longer than this do not fit an entry
+    private static final int MAX_PLIES = 126;
+    // Queen, rook, bishop and knight in `TablebaseMaterial.LETTERS`
+    private static final int[] PROMOTION_RANKS = {1, 2, 3, 4};
+    private static final TeamColor[] TEAMS = {TeamColor.WHITE, TeamColor.BLACK};
+
+    private final Path directory;
+    // Finished tables by material key
+    private final Map<Integer, Table> tables = new HashMap<>();
+
+    private record Table(TablebaseMaterial material, ByteBuffer entries, int maxPlies) {
+    }
+
+    /**
+     * @param directory Where to write tables, and where tables built before are picked up from
+     */
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Builds a table and every table it depends on, skipping those already in the directory
+     *
+     * @param name The table, like "KRvKP"
+     * @throws IOException If a table cannot be read or written
+     */
+    public void generate(String name) throws IOException {
+        generate(TablebaseMaterial.parse(name));
+    }
+
+    private Table generate(TablebaseMaterial material) throws IOException {
+        Table table = tables.get(material.key);
+        if (table != null) {
+            return table;
+        }
+        int maxDependencyPlies = 0;
+        for (TablebaseMaterial dependency : dependencies(material)) {
+            maxDependencyPlies = Math.max(maxDependencyPlies, generate(dependency).maxPlies());
+        }
+        Path file = directory.resolve(material.name + Tablebase.EXTENSION);
+        ByteBuffer entries;
+        if (Files.exists(file)) {
+            entries = Tablebase.map(file, material);
+        } else {
+            long start = System.nanoTime();
+            byte[] values = solve(material, maxDependencyPlies);
+            write(file, values);
+            entries = ByteBuffer.wrap(values);
+            System.out.printf("%s: %,d positions in %.1f s%n", material.name, values.length,
+                    (System.nanoTime() - start) / 1e9);
+        }
+        table = new Table(material, entries, maxPlies(entries));
+        tables.put(material.key, table);
+        return table;
+    }
+
+    /**
+     * @return The tables a capture or promotion can lead to
+     */
+    private static List<TablebaseMaterial> dependencies(TablebaseMaterial material) {
+        List<TablebaseMaterial> dependencies = new ArrayList<>();
+        TablebasePosition position = new TablebasePosition();
+        for (int changed = 0; changed < material.count; changed++) {
+            if (material.ranks[changed] == 0) {
+                continue;
+            }
+            // Captured, and promoted when it is a pawn
+            int[] replacements = material.ranks[changed] == TablebaseMaterial.PAWN_RANK ? PROMOTION_RANKS : new int[0];
+            for (int replacement = -1; replacement < replacements.length; replacement++) {
+                position.clear(TablebasePosition.WHITE);
+                for (int i = 0; i < material.count; i++) {
+                    if (i != changed) {
+                        position.add(material.ranks[i], material.colors[i], 0);
+                    } else if (replacement >= 0) {
+                        position.add(replacements[replacement], material.colors[i], 0);
+                    }
+                }
+                position.canonicalize();
+                TablebaseMaterial dependency = TablebaseMaterial.of(position);
+                if (dependency != null) {
+                    dependencies.add(dependency);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private byte[] solve(TablebaseMaterial material, int maxDependencyPlies) {
+        byte[] values = new byte[material.size];
+        IntStream.range(0, values.length).parallel().forEach(index -> values[index] = examine(material, values, index, 0));
+        for (int plies = 1; ; plies++) {
+            if (plies > MAX_PLIES) {
+                throw new IllegalStateException(material.name + " has mates longer than " + MAX_PLIES + " plies");
+            }
+            int pass = plies;
+            AtomicBoolean changed = new AtomicBoolean();
+            IntStream.range(0, values.length).parallel().forEach(index -> {
+                if (values[index] == Tablebase.DRAW) {
+                    byte value = examine(material, values, index, pass);
+                    if (value != Tablebase.DRAW) {
+                        values[index] = value;
+                        changed.set(true);
+                    }
+                }
+            });
+            // Only a capture or promotion into a longer mate could still change anything
+            if (!changed.get() && plies > maxDependencyPlies + 1) {
+                return values;
+            }
+        }
+    }
+
+    /**
+     * Looks at one position for one pass. Entries written in the same pass are for `plies`, and
+     * only entries for `plies - 1` are acted on, so the threads of a pass do not interfere.
+     *
+     * @param plies 0 for the first pass, which finds illegal positions, mates and stalemates
+     * @return The entry the pass found for the position, `DRAW` if it found nothing
+     */
+    private byte examine(TablebaseMaterial material, byte[] values, int index, int plies) {
+        int count = material.count;
+        int[] squares = new int[count];
+        int sideToMove = material.decode(index, squares);
+        int opponent = sideToMove ^ 1;
+        long occupancy = 0;
+        long own = 0;
+        for (int i = 0; i < count; i++) {
+            long bit = 1L << squares[i];
+            int row = squares[i] >>> 3;
+            if ((occupancy & bit) != 0 || (material.ranks[i] == TablebaseMaterial.PAWN_RANK && (row == 0 || row == 7))) {
+                return Tablebase.ILLEGAL;
+            }
+            occupancy |= bit;
+            if (material.colors[i] == sideToMove) {
+                own |= bit;
+            }
+        }
+        if (isAttacked(material, squares, occupancy, squares[material.kings[opponent]], sideToMove, -1)) {
+            return Tablebase.ILLEGAL;
+        }
+
+        boolean anyMove = false;
+        boolean allWins = true;
+        int longestWin = 0;
+        for (int i = 0; i < count; i++) {
+            if (material.colors[i] != sideToMove) {
+                continue;
+            }
+            int from = squares[i];
+            int rank = material.ranks[i];
+            long targets = rank == TablebaseMaterial.PAWN_RANK ? pawnTargets(from, sideToMove, occupancy, occupancy & ~own)
+                                                               : attacks(rank, from, sideToMove, occupancy) & ~own;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int captured = -1;
+                for (int j = 0; j < count; j++) {
+                    if (j != i && squares[j] == to) {
+                        captured = j;
+                    }
+                }
+                squares[i] = to;
+                long after = (occupancy & ~(1L << from)) | (1L << to);
+                boolean legal = !isAttacked(material, squares, after, squares[material.kings[sideToMove]], opponent, captured);
+                if (legal) {
+                    if (plies == 0) {
+                        // Has a move, so it is neither mate nor stalemate
+                        return Tablebase.DRAW;
+                    }
+                    boolean promotes = rank == TablebaseMaterial.PAWN_RANK && (to >>> 3 == 0 || to >>> 3 == 7);
+                    for (int promotion = 0; promotion < (promotes ? PROMOTION_RANKS.length : 1); promotion++) {
+                        anyMove = true;
+                        byte value = promotes || captured >= 0
+                                     ? convertedValue(material, squares, opponent, captured, promotes ? i : -1,
+                                             promotes ? PROMOTION_RANKS[promotion] : 0)
+                                     : values[material.index(squares, opponent)];
+                        if (value < 0 && -value - 1 == plies - 1) {
+                            return (byte) plies;
+                        }
+                        if (value > 0) {
+                            longestWin = Math.max(longestWin, value);
+                        } else {
+                            allWins = false;
+                        }
+                    }
+                }
+                squares[i] = from;
+            }
+        }
+        if (plies == 0) {
+            // No legal move: mate when in check, stalemate otherwise
+            boolean inCheck = isAttacked(material, squares, occupancy, squares[material.kings[sideToMove]], opponent, -1);
+            return inCheck ? (byte) -1 : Tablebase.DRAW;
+        }
+        if (anyMove && allWins && longestWin == plies - 1) {
+            return (byte) -(plies + 1);
+        }
+        return Tablebase.DRAW;
+    }
+
+    /**
+     * @return The entry, in a smaller table, of the position after a capture or a promotion
+     */
+    private byte convertedValue(TablebaseMaterial material, int[] squares, int sideToMove, int captured,
+                                int promoted, int promotionRank) {
+        TablebasePosition position = new TablebasePosition();
+        position.clear(sideToMove);
+        for (int i = 0; i < material.count; i++) {
+            if (i != captured) {
+                position.add(i == promoted ? promotionRank : material.ranks[i], material.colors[i], squares[i]);
+            }
+        }
+        int key = position.canonicalize();
+        if (position.count <= 2) {
+            return Tablebase.DRAW;
+        }
+        Table table = tables.get(key);
+        return table.entries().get(table.material().index(position.squares, position.sideToMove));
+    }
+
+    private static boolean isAttacked(TablebaseMaterial material, int[] squares, long occupancy, int square,
+                                      int byColor, int skip) {
+        for (int i = 0; i < material.count; i++) {
+            if (i != skip && material.colors[i] == byColor
+                    && (attacks(material.ranks[i], squares[i], byColor, occupancy) & (1L << square)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The squares a piece attacks, for a pawn only its captures
+     */
+    private static long attacks(int rank, int square, int color, long occupancy) {
+        return switch (rank) {
+            case 0 -> Attacks.king(square);
+            case 1 -> Attacks.queen(square, occupancy);
+            case 2 -> Attacks.rook(square, occupancy);
+            case 3 -> Attacks.bishop(square, occupancy);
+            case 4 -> Attacks.knight(square);
+            default -> Attacks.pawn(TEAMS[color], square);
+        };
+    }
+
+    private static long pawnTargets(int from, int color, long occupancy, long enemies) {
+        int step = color == TablebasePosition.WHITE ? 8 : -8;
+        int startRow = color == TablebasePosition.WHITE ? 1 : 6;
+        long targets = Attacks.pawn(TEAMS[color], from) & enemies;
+        int forward = from + step;
+        if ((occupancy & (1L << forward)) == 0) {
+            targets |= 1L << forward;
+            int twoForward = forward + step;
+            if (from >>> 3 == startRow && (occupancy & (1L << twoForward)) == 0) {
+                targets |= 1L << twoForward;
+            }
+        }
+        return targets;
+    }
+
+    private static int maxPlies(ByteBuffer entries) {
+        int max = 0;
+        for (int i = 0; i < entries.capacity(); i++) {
+            byte value = entries.get(i);
+            if (value != Tablebase.ILLEGAL) {
+                max = Math.max(max, value > 0 ? value : -value - 1);
+            }
+        }
+        return max;
+    }
+
+    private static void write(Path file, byte[] values) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeLong(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(values.length);
+            out.write(values);
+        }
+        Files.move(partial, file);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator <directory> [tables, like KQvKR]");
+            System.exit(1);
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        List<String> names = args.length > 1 ? List.of(args).subList(1, args.length) : THREE_PIECE_TABLES;
+        for (String name : names) {
+            generator.generate(name);
+        }
+    }
+}
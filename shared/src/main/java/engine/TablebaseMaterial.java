@@ -0,0 +1,135 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * One tablebase: which pieces it holds and how its positions map to entry indexes.
+ * <p>
+ * Names read like "KQvKR", white's pieces then black's, strongest first, and white always holds
+ * the stronger side (see `TablebasePosition.canonicalize()`). Pieces are in the same order as in a
+ * canonical `TablebasePosition`, so the white king comes first.
+ * <p>
+ * Without castling, a position and its mirror image across the d/e line have the same value, so
+ * only positions with the white king on files a to d are stored. An index packs the side to move,
+ * that king's square (32) and every other piece's square (64 each).
+ */
+final class TablebaseMaterial {
+    /** Piece letters, a piece's rank is its index in here */
+    static final String LETTERS = "KQRBNP";
+    static final int PAWN_RANK = 5;
+
+    final int key;
+    final String name;
+    final int[] ranks;
+    final int[] colors;
+    final int count;
+    final int size;
+    // Index of the king of each color
+    final int[] kings = new int[2];
+
+    private TablebaseMaterial(int[] ranks, int[] colors, int count) {
+        this.ranks = Arrays.copyOf(ranks, count);
+        this.colors = Arrays.copyOf(colors, count);
+        this.count = count;
+        key = key(ranks, colors, count);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && colors[i] != colors[i - 1]) {
+                builder.append('v');
+            }
+            builder.append(LETTERS.charAt(ranks[i]));
+            if (ranks[i] == 0) {
+                kings[colors[i]] = i;
+            }
+        }
+        name = builder.toString();
+        size = 2 * 32 << (6 * (count - 1));
+    }
+
+    /**
+     * @param position A canonical position
+     * @return Its table, or null when only the kings are left (always a draw)
+     */
+    static TablebaseMaterial of(TablebasePosition position) {
+        return position.count <= 2 ? null : new TablebaseMaterial(position.ranks, position.colors, position.count);
+    }
+
+    /**
+     * @param name A name like "KQvKR" or "KvKP", in either color order
+     * @return The table, with its canonical name
+     * @throws IllegalArgumentException If the name is not two sides with a king each and at most
+     * `TablebasePosition.MAX_PIECES` pieces in all
+     */
+    static TablebaseMaterial parse(String name) {
+        String[] sides = name.toUpperCase().split("V");
+        if (sides.length != 2) {
+            throw new IllegalArgumentException("Tablebase name needs two sides, like KQvK: " + name);
+        }
+        TablebasePosition position = new TablebasePosition();
+        position.clear(TablebasePosition.WHITE);
+        for (int color = 0; color < 2; color++) {
+            String side = sides[color];
+            if (side.isEmpty() || side.charAt(0) != 'K' || side.indexOf('K', 1) >= 0) {
+                throw new IllegalArgumentException("Each side needs exactly one king, first: " + name);
+            }
+            for (int i = 0; i < side.length(); i++) {
+                int rank = LETTERS.indexOf(side.charAt(i));
+                if (rank < 0 || !position.add(rank, color, 0)) {
+                    throw new IllegalArgumentException("Unknown piece or too many pieces: " + name);
+                }
+            }
+        }
+        if (position.count <= 2) {
+            throw new IllegalArgumentException("Kings alone are always a draw: " + name);
+        }
+        position.canonicalize();
+        return of(position);
+    }
+
+    /**
+     * @return A number that is the same for every arrangement of the same pieces: two bits of
+     * count for every color and rank
+     */
+    static int key(int[] ranks, int[] colors, int count) {
+        int key = 0;
+        for (int i = 0; i < count; i++) {
+            key += 1 << ((colors[i] * LETTERS.length() + ranks[i]) * 2);
+        }
+        return key;
+    }
+
+    /**
+     * @param squares Square of every piece, in this table's order
+     * @return The entry index
+     */
+    int index(int[] squares, int sideToMove) {
+        // Mirror so the white king is on files a to d
+        int mirror = (squares[0] & 7) >= 4 ? 7 : 0;
+        int king = squares[0] ^ mirror;
+        int index = sideToMove * 32 + ((king >>> 3) << 2 | (king & 3));
+        for (int i = 1; i < count; i++) {
+            index = (index << 6) | (squares[i] ^ mirror);
+        }
+        return index;
+    }
+
+    /**
+     * @param index An entry index
+     * @param squares Filled with the square of every piece, in this table's order
+     * @return The side to move
+     */
+    int decode(int index, int[] squares) {
+        for (int i = count - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int king = index & 31;
+        squares[0] = (king >>> 2) << 3 | (king & 3);
+        return index >>> 5;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
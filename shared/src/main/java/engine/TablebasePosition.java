@@ -0,0 +1,132 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * A position with few pieces, as a tablebase sees it: for every piece its rank in
+ * `TablebaseMaterial.LETTERS`, its color (0 white, 1 black) and its square index, plus the side to move.
+ * Castling and En passant are not part of it.
+ */
+final class TablebasePosition {
+    static final int MAX_PIECES = 4;
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+
+    private static final TeamColor[] TEAM_COLORS = TeamColor.values();
+
+    // Indexed by rank in `TablebaseMaterial.LETTERS`
+    private static final PieceType[] RANK_TYPES = {
+            PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+
+    final int[] ranks = new int[MAX_PIECES];
+    final int[] colors = new int[MAX_PIECES];
+    final int[] squares = new int[MAX_PIECES];
+    int count;
+    int sideToMove;
+
+    void clear(int sideToMove) {
+        count = 0;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * @return False if the position already holds `MAX_PIECES` pieces
+     */
+    boolean add(int rank, int color, int square) {
+        if (count == MAX_PIECES) {
+            return false;
+        }
+        ranks[count] = rank;
+        colors[count] = color;
+        squares[count] = square;
+        count++;
+        return true;
+    }
+
+    /**
+     * @return False if the board has too many pieces for a tablebase
+     */
+    boolean load(ChessBoard board, TeamColor sideToMove) {
+        clear(sideToMove.ordinal());
+        if (Long.bitCount(board.getOccupancy()) > MAX_PIECES) {
+            return false;
+        }
+        for (TeamColor teamColor : TEAM_COLORS) {
+            for (int rank = 0; rank < RANK_TYPES.length; rank++) {
+                long pieces = board.getPieceBitboard(teamColor, RANK_TYPES[rank]);
+                while (pieces != 0) {
+                    add(rank, teamColor.ordinal(), Long.numberOfTrailingZeros(pieces));
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turns the position into the one its table stores: colors are swapped (and the board flipped)
+     * when black has the stronger material, then pieces are sorted by color, rank and square.
+     *
+     * @return The material key of the table, see `TablebaseMaterial.key()`
+     */
+    int canonicalize() {
+        if (strength(BLACK) > strength(WHITE)) {
+            for (int i = 0; i < count; i++) {
+                colors[i] ^= 1;
+                squares[i] ^= 56;
+            }
+            sideToMove ^= 1;
+        }
+        for (int i = 1; i < count; i++) {
+            int rank = ranks[i];
+            int color = colors[i];
+            int square = squares[i];
+            int j = i - 1;
+            while (j >= 0 && compare(colors[j], ranks[j], squares[j], color, rank, square) > 0) {
+                ranks[j + 1] = ranks[j];
+                colors[j + 1] = colors[j];
+                squares[j + 1] = squares[j];
+                j--;
+            }
+            ranks[j + 1] = rank;
+            colors[j + 1] = color;
+            squares[j + 1] = square;
+        }
+        return TablebaseMaterial.key(ranks, colors, count);
+    }
+
+    static PieceType pieceType(int rank) {
+        return RANK_TYPES[rank];
+    }
+
+    /**
+     * More pieces is stronger, then the piece list with the strongest piece first compares
+     * like a word: the side whose first different piece is stronger wins.
+     */
+    private int strength(int color) {
+        int pieces = 0;
+        int code = 0;
+        for (int rank = 1; rank < RANK_TYPES.length; rank++) {
+            for (int i = 0; i < count; i++) {
+                if (colors[i] == color && ranks[i] == rank) {
+                    pieces++;
+                    code = code * 8 + (8 - rank);
+                }
+            }
+        }
+        // Equal counts give codes of equal length, so they compare digit by digit
+        return (pieces << 24) | code;
+    }
+
+    private static int compare(int colorA, int rankA, int squareA, int colorB, int rankB, int squareB) {
+        if (colorA != colorB) {
+            return Integer.compare(colorA, colorB);
+        }
+        if (rankA != rankB) {
+            return Integer.compare(rankA, rankB);
+        }
+        return Integer.compare(squareA, squareB);
+    }
+}
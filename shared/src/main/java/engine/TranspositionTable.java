@@ -0,0 +1,153 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, keyed by `ChessGame.positionKey()`.
+ * <p>
+ * Each slot is two longs: the packed entry and the position key XORed with that entry. A probe only
+ * accepts a slot whose two halves XOR back to the probed key, so a slot torn by two threads writing
+ * at once reads as a miss instead of as a wrong entry. That makes the table safe to share between
+ * search threads without any locking. Both arrays are allocated once, in the constructor.
+ * <p>
+ * Entry layout, see the accessors: move (20 bits), score (16 bits, signed), depth (8 bits),
+ * bound (2 bits), generation (8 bits).
+ */
+public class TranspositionTable {
+    /** `probe()` result when the position is not in the table */
+    public static final long MISS = 0L;
+
+    /** The score is exact */
+    public static final int BOUND_EXACT = 1;
+    /** The search failed high, the real score is at least the stored one */
+    public static final int BOUND_LOWER = 2;
+    /** The search failed low, the real score is at most the stored one */
+    public static final int BOUND_UPPER = 3;
+
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int MOVE_BITS = 20;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + 16;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+    private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+    // Bumped by every new search so entries from old searches are replaced first
+    private volatile int generation;
+
+    /**
+     * @param sizeMb Memory to use in megabytes, rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB, got " + sizeMb);
+        }
+        long wanted = (long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY;
+        int capacity = Integer.highestOneBit((int) Math.min(wanted, 1 << 30));
+        keys = new long[capacity];
+        entries = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return Number of slots in the table
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Marks the start of a new search. Entries stored before are kept but replaced first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(entries, 0L);
+    }
+
+    /**
+     * @param key The position key
+     * @return The packed entry for the position, or `MISS`
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = entries[index];
+        if ((keys[index] ^ entry) != key) {
+            return MISS;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a search result. An existing entry for another position is only replaced if it is
+     * from an older search or was searched less deeply.
+     *
+     * @param key The position key
+     * @param move The best move found (packed), or `Search.NO_MOVE`
+     * @param score The score, with mate scores relative to this position (see `Search`)
+     * @param depth The remaining depth the score was searched to
+     * @param bound One of the `BOUND_` constants
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long existing = entries[index];
+        int currentGeneration = generation;
+        if (existing != MISS && (keys[index] ^ existing) != key
+                && generation(existing) == currentGeneration && depth(existing) > depth) {
+            return;
+        }
+        if (move == Search.NO_MOVE && (keys[index] ^ existing) == key) {
+            // Keep the move a previous search of this position found
+            move = move(existing);
+        }
+        long entry = (move & ((1L << MOVE_BITS) - 1))
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) currentGeneration << GENERATION_SHIFT);
+        entries[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * @return Permille of a sample of slots holding entries from the current search
+     */
+    public int hashfullPermille() {
+        int sample = Math.min(1000, entries.length);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            if (entries[i] != MISS && generation(entries[i]) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+}
@@ -0,0 +1,4 @@
+package requests;
+
+public record AnalyzeRequest(String authToken, String gameID, int depth, long moveTime) {
+}
@@ -0,0 +1,5 @@
+package requests;
+
+public record AnalyzeResult(String bestMove, int score, int mateIn, int depth, long nodes,
+                            String principalVariation, boolean book, String message) {
+}
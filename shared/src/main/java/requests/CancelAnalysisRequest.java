@@ -0,0 +1,4 @@
+package requests;
+
+public record CancelAnalysisRequest(String authToken, String gameID) {
+}
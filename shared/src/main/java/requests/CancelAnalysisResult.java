@@ -0,0 +1,4 @@
+package requests;
+
+public record CancelAnalysisResult(String message) {
+}
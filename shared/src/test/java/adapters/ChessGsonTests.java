@@ -0,0 +1,44 @@
+package adapters;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import com.google.gson.JsonSyntaxException;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.ServerMessage;
+
+public class ChessGsonTests {
+    @Test
+    @DisplayName("Typed Methods Match Gson")
+    public void typedMethodsMatchGson() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        GameData gameData = new GameData(3, "white", null, "typed", game);
+        LoadGameMessage loadGameMessage = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, gameData);
+        MakeMoveCommand makeMoveCommand = new MakeMoveCommand(UserGameCommand.CommandType.MAKE_MOVE, "token", 3,
+                new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN));
+
+        String json = ChessGson.toJson(loadGameMessage);
+        Assertions.assertEquals(ChessGson.gson().toJson(loadGameMessage), json);
+        Assertions.assertEquals(loadGameMessage, ChessGson.readLoadGameMessage(json));
+
+        json = ChessGson.toJson(makeMoveCommand);
+        Assertions.assertEquals(ChessGson.gson().toJson(makeMoveCommand), json);
+        Assertions.assertEquals(makeMoveCommand, ChessGson.readMakeMoveCommand(json));
+
+        json = ChessGson.toJson(gameData);
+        Assertions.assertEquals(ChessGson.gson().toJson(gameData), json);
+        Assertions.assertEquals(gameData, ChessGson.readGameData(json));
+
+        Assertions.assertNull(ChessGson.readGameData(""));
+        Assertions.assertThrows(JsonSyntaxException.class, () -> ChessGson.readGameData("{\"gameID\":3} {}"));
+        Assertions.assertThrows(JsonSyntaxException.class, () -> ChessGson.readGameData("{\"gameID\":"));
+    }
+}
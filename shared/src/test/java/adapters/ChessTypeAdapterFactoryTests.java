@@ -0,0 +1,46 @@
+package adapters;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Perft;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessTypeAdapterFactoryTests {
+    // Written by the tree based adapters, clients and stored games depend on every detail of it
+    private static final String GAME_JSON = """
+            {"gameBoard":{"board":[{"position":{"row":1,"col":5},"piece":{"pieceColor":"WHITE","type":"KING"}},\
+            {"position":{"row":1,"col":7},"piece":{"pieceColor":"WHITE","type":"ROOK"}},\
+            {"position":{"row":4,"col":5},"piece":{"pieceColor":"WHITE","type":"PAWN"}},\
+            {"position":{"row":8,"col":4},"piece":{"pieceColor":"BLACK","type":"KING"}}],\
+            "castleRequirements":{"WHITE":{"KING":{"KING_SIDE":true,"QUEEN_SIDE":false},"ROOK":{"KING_SIDE":false,"QUEEN_SIDE":false}},\
+            "BLACK":{"KING":{"KING_SIDE":false,"QUEEN_SIDE":false},"ROOK":{"KING_SIDE":false,"QUEEN_SIDE":false}}},\
+            "whiteKingPos":{"row":1,"col":5},"blackKingPos":{"row":8,"col":4}},\
+            "teamTurn":"BLACK","gameOver":false,"halfmoveClock":2,"positionHistory":[-1714860027272977506,357269620166039432]}""";
+
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ChessTypeAdapterFactory()).create();
+
+    @Test
+    @DisplayName("Same JSON As The Tree Adapters")
+    public void sameJsonAsTreeAdapters() throws InvalidMoveException {
+        ChessGame game = Perft.loadFen("4k3/8/8/8/8/8/4P3/4K2R w K - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 7), null));
+
+        Assertions.assertEquals(GAME_JSON, gson.toJson(game));
+        ChessGame read = gson.fromJson(GAME_JSON, ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertEquals(game.getPositionHistory().length, read.getPositionHistory().length);
+        // The En passant option a double pawn move leaves is written too
+        ChessGame kiwipete = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        kiwipete.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(4, 1), null));
+        Assertions.assertEquals(kiwipete, gson.fromJson(gson.toJson(kiwipete), ChessGame.class));
+        Assertions.assertNull(gson.fromJson("null", ChessGame.class));
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import adapters.ChessGson;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRuleTests {
+    private static final Gson GSON = ChessGson.gson();
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        Assertions.assertFalse(game.isDraw());
+
+        // Stored and loaded again between moves, as the server does
+        game = GSON.fromJson(GSON.toJson(game), ChessGame.class);
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertTrue(game.isGameOver());
+        ChessGame drawn = game;
+        Assertions.assertThrows(InvalidMoveException.class, () -> drawn.makeMove(move("g1f3")));
+
+        game.unmakeMove();
+        Assertions.assertFalse(game.isDraw());
+        // A pawn move makes every earlier position unreachable
+        game.makeMove(move("e7e5"));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(0, game.getPositionHistory().length);
+    }
+
+    @Test
+    @DisplayName("Repetition After Double Pawn Move")
+    public void repetitionAfterDoublePawnMove() throws InvalidMoveException {
+        // No black pawn can take on e3, so the option e2e4 leaves does not make its position different
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        String[] shuffle = {"g8f6", "g1f3", "f6g8", "f3g1"};
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertTrue(game.isThreefoldRepetition());
+
+        // Here e5xd6 is possible right after d7d5, later on it is not
+        game = Perft.loadFen("4k1n1/3p4/8/4P3/8/8/8/4K1N1 b - - 0 1");
+        game.makeMove(move("d7d5"));
+        shuffle = new String[]{"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(0, game.getRepetitionCount());
+        for (String move : shuffle) {
+            game.makeMove(move(move));
+        }
+        Assertions.assertEquals(1, game.getRepetitionCount());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Perft.loadFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        game.setHalfmoveClock(ChessGame.FIFTY_MOVE_PLIES - 1);
+        game.makeMove(move("a1a7"));
+        Assertions.assertTrue(game.isFiftyMoveDraw());
+        Assertions.assertTrue(game.isGameOver());
+        game.unmakeMove();
+        Assertions.assertFalse(game.isDraw());
+
+        // Mate on the last ply still counts
+        game = Perft.loadFen("4k3/R7/4K3/8/8/8/8/8 w - - 0 1");
+        game.setHalfmoveClock(ChessGame.FIFTY_MOVE_PLIES - 1);
+        game.makeMove(move("a7a8"));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isFiftyMoveDraw());
+
+        // Games stored before the clock existed still load
+        JsonObject json = GSON.toJsonTree(new ChessGame()).getAsJsonObject();
+        json.remove("halfmoveClock");
+        json.remove("positionHistory");
+        ChessGame legacy = GSON.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(0, legacy.getHalfmoveClock());
+        Assertions.assertEquals(new ChessGame(), legacy);
+    }
+
+    private static ChessMove move(String uci) {
+        return new ChessMove(position(uci, 0), position(uci, 2), null);
+    }
+
+    private static ChessPosition position(String uci, int offset) {
+        return new ChessPosition(uci.charAt(offset + 1) - '0', uci.charAt(offset) - 'a' + 1);
+    }
+}
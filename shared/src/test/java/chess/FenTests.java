@@ -0,0 +1,58 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class FenTests {
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    @DisplayName("FEN Round Trip")
+    public void fenRoundTrip(Perft.Position position) {
+        ChessGame game = ChessGame.fromFen(position.getFen());
+        // The fullmove number is not tracked
+        String fen = position.getFen();
+        Assertions.assertEquals(fen.substring(0, fen.lastIndexOf(' ')) + " 1", game.toFen());
+        Assertions.assertEquals(game, ChessGame.fromFen(game.toFen()));
+    }
+
+    @Test
+    @DisplayName("FEN Keeps Castle Requirements And En Passant")
+    public void fenKeepsGameState() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", game.toFen());
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+        assertRoundTrip(game);
+
+        // The king still meets its requirements after the rook left, which takes the extra field
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 7), null));
+        Assertions.assertTrue(game.toFen().startsWith("rnbqkbnr/pppppppp/8/8/4P3/5N2/PPPP1PPP/RNBQKBR1 b Qkq - 4 1 "),
+                game.toFen());
+        assertRoundTrip(game);
+        Assertions.assertFalse(game.getBoard().getCastleStatus(ChessGame.TeamColor.WHITE, ChessBoard.CastleType.KING_SIDE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "8/8/8/8/8/8/8 w - -", "9/8/8/8/8/8/8/8 w - -", "8/8/8/8/8/8/8/7x w - -",
+            "8/8/8/8/8/8/8/8 x - -", "8/8/8/8/8/8/8/8 w X -", "8/8/8/8/8/8/8/8 w - j9", "8/8/8/8/8/8/8/8 w - - a",
+            "4k3/8/8/8/8/8/8/4K3 w - - 0 1 100"})
+    @DisplayName("Invalid FEN")
+    public void invalidFen(String fen) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+
+    private static void assertRoundTrip(ChessGame game) {
+        ChessGame loaded = ChessGame.fromFen(game.toFen());
+        Assertions.assertEquals(game, loaded);
+        Assertions.assertEquals(game.getBoard().getCastleRequirements(), loaded.getBoard().getCastleRequirements());
+        Assertions.assertEquals(game.positionKey(), loaded.positionKey());
+        Assertions.assertEquals(game.getHalfmoveClock(), loaded.getHalfmoveClock());
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class OffBoardPositionTests {
+    @Test
+    @DisplayName("Off Board Column Holds No Piece")
+    public void offBoardColumnHoldsNoPiece() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        // Column 9 of row 1 would be a2 if it were not checked, column 0 would be out of range
+        Assertions.assertNull(board.getPiece(new ChessPosition(1, 9)), "getPiece found a piece off the board");
+        Assertions.assertNull(board.getPiece(new ChessPosition(1, 0)), "getPiece found a piece off the board");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> board.getBoardMap().put(new ChessPosition(1, 9), board.getPiece(new ChessPosition(2, 1))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> board.addPiece(new ChessPosition(1, 0),
+                        new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN)));
+    }
+
+    @Test
+    @DisplayName("Move From Or To Off Board Column")
+    public void moveOffBoardColumn() {
+        var game = new ChessGame();
+        ChessGame original = game.copy();
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(1, 9), new ChessPosition(3, 1), null)),
+                "Moved the a2 pawn from an off board column");
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(1, 0), new ChessPosition(3, 1), null)));
+        // Row 3, column 9 would be a4
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 9), null)),
+                "Moved the a2 pawn to an off board column");
+        Assertions.assertEquals(original, game, "A rejected move changed the game");
+    }
+}
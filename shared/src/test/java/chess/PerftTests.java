@@ -0,0 +1,46 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Map;
+
+public class PerftTests {
+    private static final int TEST_DEPTH = 3;
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    @DisplayName("Perft Node Counts")
+    public void perftNodeCounts(Perft.Position position) {
+        ChessGame game = Perft.loadFen(position.getFen());
+        Perft perft = new Perft(game);
+        for (int depth = 1; depth <= TEST_DEPTH; depth++) {
+            Assertions.assertEquals(position.getExpectedNodes(depth), perft.perft(depth),
+                    "Wrong node count at depth " + depth);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    @DisplayName("Perft Restores Position")
+    public void perftRestoresPosition(Perft.Position position) {
+        ChessGame game = Perft.loadFen(position.getFen());
+        ChessGame original = game.copy();
+        new Perft(game).perft(TEST_DEPTH);
+        Assertions.assertEquals(original, game, "Make/unmake left the game changed");
+        Assertions.assertEquals(original.positionKey(), game.positionKey(), "Position key changed");
+    }
+
+    @Test
+    @DisplayName("Divide Sums To Perft")
+    public void divideSumsToPerft() {
+        Perft perft = new Perft(Perft.loadFen(Perft.Position.KIWIPETE.getFen()));
+        Map<ChessMove, Long> divide = perft.divide(2);
+        Assertions.assertEquals(48, divide.size());
+        Assertions.assertEquals(Perft.Position.KIWIPETE.getExpectedNodes(2),
+                divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+}
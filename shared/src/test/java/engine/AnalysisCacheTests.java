@@ -0,0 +1,46 @@
+package engine;
+
+import chess.ChessGame;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AnalysisCacheTests {
+
+    @Test
+    @DisplayName("Deeper Result Answers Shallower Request")
+    public void deeperResultAnswersShallowerRequest() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        AnalysisCache cache = new AnalysisCache(1024 * 1024);
+        cache.put(game.positionKey(), result);
+
+        Assertions.assertSame(result, cache.get(game.positionKey(), SearchLimits.depth(3)));
+        Assertions.assertSame(result, cache.get(game.positionKey(), SearchLimits.depth(4)));
+        Assertions.assertNull(cache.get(game.positionKey(), SearchLimits.depth(5)));
+        Assertions.assertNull(cache.get(game.positionKey() + 1, SearchLimits.depth(1)));
+        Assertions.assertEquals(2, cache.hitCount());
+        Assertions.assertEquals(2, cache.missCount());
+
+        // A shallower result never replaces a deeper one
+        cache.put(game.positionKey(), new Search().search(game, SearchLimits.depth(2)));
+        Assertions.assertSame(result, cache.get(game.positionKey(), SearchLimits.depth(4)));
+    }
+
+    @Test
+    @DisplayName("Evicts Least Recently Used Over Budget")
+    public void evictsLeastRecentlyUsed() {
+        SearchResult result = new SearchResult(Search.NO_MOVE, 0, 1, 1, new int[0], 0);
+        AnalysisCache cache = new AnalysisCache(1000);
+        for (long key = 1; key <= 100; key++) {
+            cache.put(key, result);
+            // Key 1 is used all the time, so it stays
+            Assertions.assertNotNull(cache.get(1L, SearchLimits.depth(1)));
+        }
+        Assertions.assertTrue(cache.sizeBytes() <= 1000, cache.toString());
+        Assertions.assertTrue(cache.evictionCount() > 0, cache.toString());
+        Assertions.assertNull(cache.get(2L, SearchLimits.depth(1)));
+        Assertions.assertNotNull(cache.get(100L, SearchLimits.depth(1)));
+    }
+}
@@ -0,0 +1,56 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class EvaluatorTests {
+
+    @Test
+    @DisplayName("Starting Position Is Level")
+    public void startingPositionIsLevel() {
+        Assertions.assertEquals(0, new Evaluator().evaluate(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Mirrored Position Scores The Same For The Mover")
+    public void mirroredPositionScoresTheSame() {
+        ChessGame white = Perft.loadFen("4k3/pp4p1/8/2P5/8/8/5PPP/3QK3 w - - 0 1");
+        ChessGame black = Perft.loadFen("3qk3/5ppp/8/8/2p5/8/PP4P1/4K3 b - - 0 1");
+        Evaluator evaluator = new Evaluator();
+        int score = evaluator.evaluate(white);
+        Assertions.assertTrue(score > 0, "An extra queen should be ahead");
+        Assertions.assertEquals(score, evaluator.evaluate(black));
+    }
+
+    @Test
+    @DisplayName("Incremental Totals Match A Rebuilt Board")
+    public void incrementalTotalsMatchRebuiltBoard() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        int[] moves = new int[ChessGame.MAX_MOVES];
+        // Play a few captures, castles and promotions if there are any, first legal move otherwise
+        for (int ply = 0; ply < 12; ply++) {
+            int count = game.generateLegalMoves(moves, 0);
+            if (count == 0) {
+                break;
+            }
+            game.makeMoveUnchecked(moves[(ply * 7) % count]);
+        }
+        ChessBoard played = game.getBoard();
+        ChessBoard rebuilt = new ChessBoard();
+        for (Map.Entry<ChessPosition, ChessPiece> entry : played.getBoardMap().entrySet()) {
+            rebuilt.addPieceMidGame(entry.getKey(), entry.getValue());
+        }
+        Assertions.assertEquals(rebuilt.getMiddlegameScore(), played.getMiddlegameScore());
+        Assertions.assertEquals(rebuilt.getEndgameScore(), played.getEndgameScore());
+        Assertions.assertEquals(rebuilt.getPhase(), played.getPhase());
+        Assertions.assertEquals(rebuilt.pawnKey(), played.pawnKey());
+    }
+}
@@ -0,0 +1,56 @@
+package engine;
+
+import chess.ChessGame;
+import chess.PackedMove;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class MovePickerTests {
+
+    @Test
+    @DisplayName("Picks Every Legal Move Once")
+    public void picksEveryLegalMoveOnce() {
+        for (Perft.Position position : Perft.Position.values()) {
+            ChessGame game = Perft.loadFen(position.getFen());
+            int[] legal = new int[ChessGame.MAX_MOVES];
+            int count = game.generateLegalMoves(legal, 0);
+            // A legal hash move, a killer that is also legal and one that is not
+            int quiet = Arrays.stream(legal, 0, count).filter(move -> !PackedMove.isTactical(move)).findFirst()
+                    .orElse(Search.NO_MOVE);
+            int illegal = PackedMove.of(0, 63, null, 0);
+
+            MovePicker picker = new MovePicker();
+            picker.init(game, legal[count - 1], quiet, illegal, new int[MovePicker.HISTORY_SIZE], false);
+            int[] picked = new int[ChessGame.MAX_MOVES];
+            int pickedCount = 0;
+            for (int move = picker.next(); move != Search.NO_MOVE; move = picker.next()) {
+                picked[pickedCount++] = move;
+            }
+            Assertions.assertEquals(legal[count - 1], picked[0], "Hash move first in " + position);
+            int[] expected = Arrays.copyOf(legal, count);
+            int[] actual = Arrays.copyOf(picked, pickedCount);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            Assertions.assertArrayEquals(expected, actual, "Moves of " + position);
+        }
+    }
+
+    @Test
+    @DisplayName("Tactical Picking Orders Captures By Victim")
+    public void tacticalPickingOrdersCapturesByVictim() {
+        // The rook can take a queen or a pawn, and there is a quiet king move
+        ChessGame game = Perft.loadFen("4k3/8/8/3q4/8/8/3R3p/4K3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.init(game, Search.NO_MOVE, Search.NO_MOVE, Search.NO_MOVE, new int[MovePicker.HISTORY_SIZE], true);
+        int first = picker.next();
+        Assertions.assertTrue(PackedMove.hasFlag(first, PackedMove.CAPTURE));
+        Assertions.assertEquals(35, PackedMove.to(first), "The queen should be taken first");
+        for (int move = picker.next(); move != Search.NO_MOVE; move = picker.next()) {
+            Assertions.assertTrue(PackedMove.isTactical(move), "Quiet move " + PackedMove.toString(move));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package engine;
+
+import chess.ChessGame;
+import chess.PackedMove;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+
+public class OpeningBookTests {
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {the usual} Nc6 (2... d6 3. d4) 3. Bb5 a6 1-0
+
+            [Event "Two"]
+            [Result "1/2-1/2"]
+
+            1.e4 c5 2.Nf3 d6 1/2-1/2
+
+            [Event "Three"]
+            [Result "0-1"]
+
+            1. d4 d5 $1 2. c4 0-1
+
+            [Event "Set up"]
+            [SetUp "1"]
+            [FEN "4k3/8/8/8/8/8/8/4K3 w - - 0 1"]
+
+            1. Kd2 *
+            """;
+
+    @Test
+    @DisplayName("Book Built From PGN")
+    public void bookBuiltFromPgn(@TempDir Path directory) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(OpeningBookBuilder.DEFAULT_MAX_PLY);
+        builder.addPgn(new StringReader(PGN));
+        Path path = directory.resolve("book.bin");
+        builder.write(path);
+        Assertions.assertEquals(3, builder.getGames());
+        Assertions.assertEquals(0, builder.getSkippedMoves());
+
+        OpeningBook book = OpeningBook.open(path);
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals("e2e4", PackedMove.toString(book.probe(game)));
+        // Weighted picks reach both first moves, e4 twice as often
+        int e4 = 0;
+        for (long random = 0; random < 3; random++) {
+            String move = PackedMove.toString(book.probe(game.positionKey(), random));
+            Assertions.assertTrue(move.equals("e2e4") || move.equals("d2d4"), move);
+            e4 += move.equals("e2e4") ? 1 : 0;
+        }
+        Assertions.assertEquals(2, e4);
+
+        game.makeMoveUnchecked(book.probe(game));
+        int reply = book.probe(game);
+        Assertions.assertTrue(game.isLegalMove(reply));
+        // Not in the book: the variation and the set up game are skipped
+        game.makeMoveUnchecked(OpeningBookBuilder.parseSan(game, "a6", new int[ChessGame.MAX_MOVES]));
+        Assertions.assertEquals(Search.NO_MOVE, book.probe(game));
+    }
+
+    @Test
+    @DisplayName("Reads Standard Algebraic Notation")
+    public void readsSan() {
+        int[] moves = new int[ChessGame.MAX_MOVES];
+        ChessGame kiwipete = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        Assertions.assertEquals("e1c1", PackedMove.toString(OpeningBookBuilder.parseSan(kiwipete, "O-O-O", moves)));
+        Assertions.assertEquals("e1g1", PackedMove.toString(OpeningBookBuilder.parseSan(kiwipete, "0-0+", moves)));
+        Assertions.assertEquals("e2a6", PackedMove.toString(OpeningBookBuilder.parseSan(kiwipete, "Bxa6", moves)));
+        Assertions.assertEquals("d5e6", PackedMove.toString(OpeningBookBuilder.parseSan(kiwipete, "dxe6", moves)));
+
+        ChessGame knights = Perft.loadFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        Assertions.assertEquals("b1d2", PackedMove.toString(OpeningBookBuilder.parseSan(knights, "Nbd2", moves)));
+        // Both knights reach d2
+        Assertions.assertEquals(PackedMove.NONE, OpeningBookBuilder.parseSan(knights, "Nd2", moves));
+
+        ChessGame promotion = Perft.loadFen(Perft.Position.CASTLING_PROMOTION.getFen());
+        promotion.makeMoveUnchecked(OpeningBookBuilder.parseSan(promotion, "Kh1", moves));
+        Assertions.assertEquals("b2a1n",
+                PackedMove.toString(OpeningBookBuilder.parseSan(promotion, "bxa1=N", moves)));
+        Assertions.assertEquals("b2b1q", PackedMove.toString(OpeningBookBuilder.parseSan(promotion, "b1Q", moves)));
+    }
+}
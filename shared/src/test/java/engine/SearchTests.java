@@ -0,0 +1,84 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void findsMateInOne() {
+        // Back rank: Ra1-a8 mates
+        ChessGame game = Perft.loadFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.getBestMove());
+        Assertions.assertEquals(1, result.getMateIn());
+    }
+
+    @Test
+    @DisplayName("Wins Hanging Queen")
+    public void winsHangingQueen() {
+        ChessGame game = Perft.loadFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(2));
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.getBestMove());
+        Assertions.assertTrue(result.score() > 0, "Capturing the queen should leave white ahead");
+    }
+
+    @Test
+    @DisplayName("No Move When Mated")
+    public void noMoveWhenMated() {
+        ChessGame game = Perft.loadFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertNull(result.getBestMove());
+        Assertions.assertEquals(-Search.MATE, result.score());
+    }
+
+    @Test
+    @DisplayName("Respects Time Budget")
+    public void respectsTimeBudget() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        ChessGame original = game.copy();
+        SearchResult result = new Search().search(game, SearchLimits.moveTime(200));
+        Assertions.assertNotNull(result.getBestMove());
+        Assertions.assertTrue(result.elapsedMillis() < 1000, "Took " + result.elapsedMillis() + " ms");
+        Assertions.assertEquals(original, game, "Search changed the caller's game");
+    }
+
+    @Test
+    @DisplayName("Cancelled Before Start Stays Cancelled")
+    public void cancelledBeforeStart() {
+        ChessGame game = Perft.loadFen(Perft.Position.KIWIPETE.getFen());
+        Search search = new Search();
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        SearchResult result = search.search(game, new SearchLimits(Search.MAX_PLY, 10_000, 0), cancelled);
+        // Only the first iteration, which always completes
+        Assertions.assertEquals(1, result.depth());
+        Assertions.assertTrue(cancelled.get());
+
+        // The next search on the same instance is not stopped by it
+        Assertions.assertEquals(4, search.search(game, SearchLimits.depth(4)).depth());
+    }
+
+    @Test
+    @DisplayName("Parallel Search Finds Mate")
+    public void parallelSearchFindsMate() {
+        ChessGame game = Perft.loadFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        try (LazySmpSearch search = new LazySmpSearch(4, new TranspositionTable(4))) {
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+            Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                    result.getBestMove());
+            // Reusable for a second search
+            Assertions.assertNotNull(search.search(Perft.loadFen(Perft.Position.KIWIPETE.getFen()),
+                    SearchLimits.moveTime(100)).getBestMove());
+        }
+    }
+}
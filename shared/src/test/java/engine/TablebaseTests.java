@@ -0,0 +1,81 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.Perft;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TablebaseTests {
+    @Test
+    @DisplayName("Generated Tables Know The Longest Mates")
+    public void longestMates(@TempDir Path directory) throws IOException {
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        generator.generate("KQvK");
+        generator.generate("KvKR");
+        Assertions.assertTrue(Files.exists(directory.resolve("KRvK" + Tablebase.EXTENSION)));
+
+        // Queen mates in at most 10 moves, rook in at most 16
+        Assertions.assertEquals(19, longestWin(directory, "KQvK"));
+        Assertions.assertEquals(31, longestWin(directory, "KRvK"));
+
+        Tablebase tablebase = Tablebase.open(directory);
+        Assertions.assertEquals(2, tablebase.size());
+        Assertions.assertEquals(3, tablebase.maxPieces());
+        Assertions.assertEquals(Search.MATE - 1, tablebase.probe(Perft.loadFen("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1")));
+        // Colors swapped and black to move, mated right away
+        Assertions.assertEquals(-Search.MATE, tablebase.probe(Perft.loadFen("7K/5k2/8/8/8/8/8/7r w - - 0 1")));
+        // Stalemate, and a queen that is simply lost
+        Assertions.assertEquals(0, tablebase.probe(Perft.loadFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1")));
+        Assertions.assertEquals(0, tablebase.probe(Perft.loadFen("8/8/8/8/8/8/1q6/K6k w - - 0 1")));
+        Assertions.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Perft.loadFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")));
+        // A king that never moved keeps its castle requirement with no rook left to castle with
+        ChessGame unmovedKing = Perft.loadFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1");
+        ChessGame.TeamColor white = ChessGame.TeamColor.WHITE;
+        unmovedKing.getBoard().setCastleRights(
+                ChessBoard.castleBit(white, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.KING_SIDE)
+                | ChessBoard.castleBit(white, ChessBoard.CastlePieceTypes.KING, ChessBoard.CastleType.QUEEN_SIDE));
+        Assertions.assertTrue(unmovedKing.getBoard().getCastleRights() != 0);
+        Assertions.assertNotEquals(Tablebase.NOT_FOUND, tablebase.probe(unmovedKing));
+        Assertions.assertEquals(Tablebase.NOT_FOUND, tablebase.probe(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("Search Plays Tablebase Mates")
+    public void searchPlaysTablebaseMates(@TempDir Path directory) throws IOException {
+        new TablebaseGenerator(directory).generate("KPvK");
+        Tablebase tablebase = Tablebase.open(directory);
+        // Promotes through KQvK and KRvK, which were built along the way
+        Assertions.assertEquals(5, tablebase.size());
+
+        Search search = new Search();
+        search.setTablebase(tablebase);
+        // Winning only because the white king reaches the sixth rank in front of its pawn
+        ChessGame game = Perft.loadFen("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+        int score = tablebase.probe(game);
+        Assertions.assertTrue(score > 0 && Search.isMateScore(score), String.valueOf(score));
+        SearchResult result = search.search(game, new SearchLimits(3, 0, 0));
+        Assertions.assertEquals(score, result.score());
+        game.makeMoveUnchecked(result.bestMove());
+        Assertions.assertEquals(-score - 1, tablebase.probe(game));
+
+        // The pawn is lost right away
+        Assertions.assertEquals(0, tablebase.probe(Perft.loadFen("8/8/8/8/8/8/3kP3/7K b - - 0 1")));
+    }
+
+    private static int longestWin(Path directory, String name) throws IOException {
+        ByteBuffer entries = Tablebase.map(directory.resolve(name + Tablebase.EXTENSION), TablebaseMaterial.parse(name));
+        int longest = 0;
+        for (int i = 0; i < entries.capacity(); i++) {
+            longest = Math.max(longest, entries.get(i));
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,48 @@
+package engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Store Then Probe")
+    public void storeThenProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, 0x4_1234, -Search.MATE + 3, 7, TranspositionTable.BOUND_LOWER);
+
+        long entry = table.probe(key);
+        Assertions.assertNotEquals(TranspositionTable.MISS, entry);
+        Assertions.assertEquals(0x4_1234, TranspositionTable.move(entry));
+        Assertions.assertEquals(-Search.MATE + 3, TranspositionTable.score(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    @DisplayName("Other Key In Same Slot Misses")
+    public void otherKeyInSameSlotMisses() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42L;
+        table.store(key, 1, 10, 3, TranspositionTable.BOUND_EXACT);
+        // Same low bits, so the same slot, but a different position
+        Assertions.assertEquals(TranspositionTable.MISS, table.probe(key + ((long) table.capacity() << 4)));
+    }
+
+    @Test
+    @DisplayName("Deeper Entry Survives Shallower Store")
+    public void deeperEntrySurvives() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deepKey = 7L;
+        long shallowKey = deepKey + table.capacity();
+        table.store(deepKey, 1, 10, 9, TranspositionTable.BOUND_EXACT);
+        table.store(shallowKey, 2, 20, 2, TranspositionTable.BOUND_EXACT);
+        Assertions.assertNotEquals(TranspositionTable.MISS, table.probe(deepKey));
+
+        table.newSearch();
+        table.store(shallowKey, 2, 20, 2, TranspositionTable.BOUND_EXACT);
+        Assertions.assertNotEquals(TranspositionTable.MISS, table.probe(shallowKey), "Old entries are replaceable");
+    }
+}